@@ -2,7 +2,6 @@ package io.jenkins.plugins.workfloworas;
 
 import static org.jenkinsci.plugins.workflow.cps.persistence.PersistenceContext.JOB;
 
-import com.cloudbees.plugins.credentials.Credentials;
 import com.cloudbees.plugins.credentials.CredentialsMatchers;
 import com.cloudbees.plugins.credentials.CredentialsProvider;
 import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
@@ -13,27 +12,25 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import hudson.AbortException;
 import hudson.Extension;
-import hudson.FilePath;
 import hudson.Util;
 import hudson.model.Action;
-import hudson.model.Computer;
 import hudson.model.Item;
 import hudson.model.Queue;
 import hudson.model.Run;
 import hudson.model.TaskListener;
-import hudson.model.TopLevelItem;
 import hudson.security.ACL;
-import hudson.slaves.WorkspaceList;
 import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
 import jenkins.model.Jenkins;
 import land.oras.ArtifactType;
 import land.oras.ContainerRef;
@@ -59,15 +56,29 @@ import org.kohsuke.stapler.verb.POST;
 @PersistIn(JOB)
 public class CpsOrasFlowDefinition extends FlowDefinition {
 
+    private static final Logger LOG = Logger.getLogger(CpsOrasFlowDefinition.class.getName());
+
     public static final ArtifactType ARTIFACT_TYPE_SCRIPT =
             ArtifactType.from("application/vnd.jenkins.pipeline.manifest.v1+json");
 
     public static final ArtifactType ARTIFACT_TYPE_REPO =
             ArtifactType.from("application/vnd.jenkins.repo.manifest.v1+json");
 
+    public static final ArtifactType ARTIFACT_TYPE_LIBRARY =
+            ArtifactType.from("application/vnd.jenkins.library.manifest.v1+json");
+
     // Media type to take if multiple layer are found
     public static final String SCRIPT_MEDIA_TYPE = "text/x-groovy";
     public static final String REPO_MEDIA_TYPE = Const.DEFAULT_BLOB_DIR_MEDIA_TYPE;
+    public static final String REPO_GZIP_MEDIA_TYPE = "application/vnd.oci.image.layer.v1.tar+gzip";
+    public static final String REPO_ZSTD_MEDIA_TYPE = "application/vnd.oci.image.layer.v1.tar+zstd";
+    public static final String REPO_TAR_MEDIA_TYPE = "application/vnd.oci.image.layer.v1.tar";
+
+    // Media types of repository archives, gzip first as pushed by default
+    public static final List<String> REPO_MEDIA_TYPES = Stream.of(
+                    REPO_MEDIA_TYPE, REPO_GZIP_MEDIA_TYPE, REPO_ZSTD_MEDIA_TYPE, REPO_TAR_MEDIA_TYPE)
+            .distinct()
+            .toList();
 
     /**
      * Credentials ID to retrieve the pipeline script
@@ -89,6 +100,11 @@ public class CpsOrasFlowDefinition extends FlowDefinition {
      */
     private String scriptPath;
 
+    /**
+     * Read the script path directly from the archive stream instead of extracting the archive.
+     */
+    private boolean lightweight;
+
     @DataBoundConstructor
     public CpsOrasFlowDefinition(String containerRef) {
         this.containerRef = containerRef;
@@ -127,6 +143,16 @@ public class CpsOrasFlowDefinition extends FlowDefinition {
         this.scriptPath = scriptPath;
     }
 
+    public boolean isLightweight() {
+        return lightweight;
+    }
+
+    @DataBoundSetter
+    @SuppressWarnings("unused") // Used by Stapler
+    public void setLightweight(boolean lightweight) {
+        this.lightweight = lightweight;
+    }
+
     @Override
     public FlowExecution create(FlowExecutionOwner owner, TaskListener listener, List<? extends Action> actions)
             throws Exception {
@@ -141,97 +167,384 @@ public class CpsOrasFlowDefinition extends FlowDefinition {
         if (!(executable instanceof Run<?, ?> build)) {
             throw new IOException("Can only pull a Jenkinsfile in a run");
         }
-        Registry registry = buildRegistry(build.getParent(), credentialsId, insecure);
-        Credentials credentials = getCredentials(build.getParent(), this.credentialsId);
+        OrasFetchTimer timer =
+                new OrasFetchTimer(ContainerRef.parse(this.containerRef).getRegistry(), this.containerRef);
+        OrasFetchPolicy policy = OrasFetchPolicy.fromConfiguration(listener);
+        try {
+            String script = policy.run(() -> loadScript(build, listener, actions, timer, policy));
+            return new CpsFlowExecution(script, true, owner);
+        } finally {
+            if (OrasGlobalConfiguration.get().isLogTimings()) {
+                listener.getLogger().println(timer.summary());
+            }
+        }
+    }
+
+    private String loadScript(
+            Run<?, ?> build,
+            TaskListener listener,
+            List<? extends Action> actions,
+            OrasFetchTimer timer,
+            OrasFetchPolicy policy)
+            throws Exception {
+        StandardUsernamePasswordCredentials credentials = timer.time(
+                OrasFetchMetrics.Phase.CREDENTIALS, () -> getCredentials(build.getParent(), this.credentialsId));
         if (credentials != null) {
             CredentialsProvider.track(build, credentials);
         }
-        ContainerRef containerRef = ContainerRef.parse(this.containerRef);
-        Manifest manifest = registry.getManifest(containerRef);
-        ensureArtifactType(scriptPath, manifest);
-        Layer layer = manifest.getLayers().size() == 1
-                ? manifest.getLayers().get(0)
-                : manifest.getLayers().stream()
-                        .filter(l -> Objects.equals(SCRIPT_MEDIA_TYPE, l.getMediaType())
-                                || Objects.equals(REPO_MEDIA_TYPE, l.getMediaType()))
-                        .findFirst()
-                        .orElseThrow(() -> new IllegalArgumentException(
-                                "No layer with media type %s or %s found in the container reference: %s"
-                                        .formatted(SCRIPT_MEDIA_TYPE, REPO_MEDIA_TYPE, this.containerRef)));
+        // Mirrors are reached with the credentials of the mirrored registry
+        Function<String, Registry> registries = ref -> buildRegistry(credentialsId, insecure, ref, credentials);
+        String reference = this.containerRef;
+        OrasBuildAction pinned = getPinnedAction(actions);
+        if (pinned != null) {
+            reference = pinned.getPinnedRef();
+            listener.getLogger()
+                    .printf("Using recorded digest %s of container %s%n", pinned.getManifestDigest(), this.containerRef);
+            // Known bad scripts fail before contacting the registry
+            failIfInvalid(pinned.getLayerDigest());
+        }
+        String resolvedReference = reference;
+        Manifest manifest = timer.time(
+                OrasFetchMetrics.Phase.MANIFEST,
+                () -> policy.callShared("Resolving " + resolvedReference, () -> OrasMirrors.get()
+                        .call(resolvedReference, registries, (registry, ref) -> OrasManifestResolver.get()
+                                .resolve(
+                                        registry,
+                                        ref,
+                                        resolutionKey(credentialsId, insecure, resolvedReference, credentials),
+                                        OrasGlobalConfiguration.get().getResolutionTtlDuration(),
+                                        policy.getRequestTimeout()))));
+        Layer layer = timer.time(OrasFetchMetrics.Phase.ARTIFACT_TYPE, () -> {
+            ensureArtifactType(scriptPath, manifest);
+            return selectLayer(manifest, this.containerRef);
+        });
         String digest = layer.getDigest();
-        if (digest == null || digest.isEmpty()) {
-            throw new IllegalArgumentException("No digest found for the container reference: " + containerRef);
+        build.addOrReplaceAction(new OrasBuildAction(this.containerRef, manifest.getDigest(), digest));
+        failIfInvalid(digest);
+        // Shared with the builds waiting for the same blob, so retried with its own policy logged to this build
+        OrasFetchPolicy.Step<InputStream> fetch = () -> OrasMirrors.get()
+                .call(resolvedReference, registries, (registry, ref) -> registry.fetchBlob(
+                        ContainerRef.parse(ref).withDigest(digest)));
+        OrasBlobCache.BlobSource blobs = () -> fetchBlob(listener, "Fetching blob " + digest, fetch);
+        // Indexing may outlive this build
+        OrasBlobCache.BlobSource indexBlobs = () -> fetchBlob(TaskListener.NULL, "Fetching blob " + digest, fetch);
+        String script = readScript(listener, timer, resolvedReference, credentials, layer, blobs, indexBlobs);
+        if (OrasGlobalConfiguration.get().isValidateScripts()) {
+            OrasScriptValidator.Verdict verdict = OrasScriptValidator.get()
+                    .validate(OrasScriptValidator.key(digest, scriptPath), script);
+            failIfInvalid(digest, verdict);
         }
+        return script;
+    }
+
+    /**
+     * Read the script from the layer, from the cache if possible
+     */
+    private String readScript(
+            TaskListener listener,
+            OrasFetchTimer timer,
+            String resolvedReference,
+            @Nullable UsernamePasswordCredentials credentials,
+            Layer layer,
+            OrasBlobCache.BlobSource blobs,
+            OrasBlobCache.BlobSource indexBlobs)
+            throws Exception {
+        String digest = layer.getDigest();
+        OrasBlobCache.BlobSource source = () -> timer.count(blobs.open());
         if (!hasScriptPath(scriptPath)) {
             listener.getLogger()
                     .printf("Using pipeline script from container %s with digest %s%n", this.containerRef, digest);
-            try (InputStream is = registry.fetchBlob(containerRef.withDigest(digest))) {
-                return new CpsFlowExecution(new String(is.readAllBytes(), StandardCharsets.UTF_8), true, owner);
+            return timer.time(OrasFetchMetrics.Phase.BLOB, () -> OrasBlobCache.get()
+                    .getScript(digest, layer.getSize(), source, timer::cacheRead));
+        } else if (lightweight) {
+            listener.getLogger()
+                    .printf(
+                            "Reading pipeline script %s from container %s with digest %s%n",
+                            this.scriptPath, this.containerRef, digest);
+            long maxSize = OrasGlobalConfiguration.get().getMaxScriptSize();
+            String script = timer.time(
+                    OrasFetchMetrics.Phase.SCRIPT_READ,
+                    () -> OrasBlobCache.get().readIndexed(digest, this.scriptPath, maxSize, timer::cacheRead));
+            if (script != null) {
+                return script;
             }
+            // Not indexed yet, the archive is only streamed up to the script and indexed off the build
+            return timer.time(OrasFetchMetrics.Phase.BLOB, () -> OrasBlobCache.get()
+                    .readEntry(
+                            digest,
+                            layer.getMediaType(),
+                            source,
+                            indexBlobs,
+                            this.scriptPath,
+                            maxSize,
+                            timer::cacheRead));
         } else {
-            FilePath dir = getDownloadFolder(owner);
-            Computer computer = Jenkins.get().toComputer();
-            if (computer == null) {
-                throw new IOException(Jenkins.get().getDisplayName() + " may be offline");
-            }
             listener.getLogger()
                     .printf(
                             "Using pipeline script %s from container %s with digest %s%n",
                             this.scriptPath, this.containerRef, digest);
-            try (WorkspaceList.Lease lease = computer.getWorkspaceList().allocate(dir)) {
-                Path scriptPathFile = Path.of(this.scriptPath).normalize();
-                Path remote = Path.of(lease.path.getRemote());
-                Path resolved = remote.resolve(scriptPathFile).normalize();
-                if (!resolved.startsWith(remote)) {
-                    throw new SecurityException("Only script path inside archive can be selected: " + scriptPathFile);
-                }
-                registry.pullArtifact(containerRef, remote, true);
-                if (!Files.exists(resolved)) {
-                    throw new IOException("Script path does not exist in the container: " + scriptPathFile);
-                }
-                String content = Files.readString(resolved);
-                Util.deleteRecursive(remote.toFile());
-                return new CpsFlowExecution(content, true, owner);
+            Path scriptPathFile = OrasArchives.normalize(this.scriptPath);
+            // Extracted once on the controller for all builds using the same digest
+            try (OrasExtractedArtifacts.Lease extracted = timer.time(OrasFetchMetrics.Phase.BLOB, () ->
+                    OrasExtractedArtifacts.get()
+                            .acquire(
+                                    digest,
+                                    layer.getMediaType(),
+                                    () -> OrasBlobCache.get()
+                                            .openArchive(
+                                                    digest,
+                                                    rangeDownload(timer, resolvedReference, credentials, digest, layer),
+                                                    source,
+                                                    timer::cacheRead),
+                                    timer::cacheRead))) {
+                return timer.time(OrasFetchMetrics.Phase.SCRIPT_READ, () -> {
+                    Path resolved = extracted.getRoot().resolve(scriptPathFile);
+                    if (!Files.isRegularFile(resolved)) {
+                        throw new IOException("Script path does not exist in the container: " + scriptPathFile);
+                    }
+                    OrasScriptReader.checkSize(Files.size(resolved), OrasGlobalConfiguration.get().getMaxScriptSize());
+                    return Files.readString(resolved);
+                });
             }
         }
     }
 
-    private static boolean hasScriptPath(String scriptPath) {
-        return scriptPath != null && !scriptPath.isEmpty();
+    /**
+     * Fail if the script of the layer is already known to be invalid
+     * @param digest The layer digest
+     */
+    private void failIfInvalid(@Nullable String digest) throws AbortException {
+        if (digest != null && OrasGlobalConfiguration.get().isValidateScripts()) {
+            failIfInvalid(digest, OrasScriptValidator.get().getVerdict(OrasScriptValidator.key(digest, scriptPath)));
+        }
+    }
+
+    private void failIfInvalid(String digest, @Nullable OrasScriptValidator.Verdict verdict) throws AbortException {
+        if (verdict != null && !verdict.valid()) {
+            throw new AbortException("Pipeline script of container %s with digest %s is invalid:%n%s"
+                    .formatted(this.containerRef, digest, verdict.error()));
+        }
+    }
+
+    /**
+     * Download a layer with range requests from the best endpoint of a reference, counting its bytes on the timer
+     */
+    private OrasBlobCache.FileSource rangeDownload(
+            OrasFetchTimer timer,
+            String reference,
+            @Nullable UsernamePasswordCredentials credentials,
+            String digest,
+            Layer layer) {
+        String endpoint = OrasMirrors.get().rank(reference).get(0);
+        OrasRangeDownloader downloader = OrasRangeDownloader.of(
+                ContainerRef.parse(endpoint).getRegistry(),
+                endpoint,
+                insecure,
+                credentials,
+                OrasGlobalConfiguration.get().getRequestTimeoutDuration());
+        return file -> {
+            if (!downloader.download(digest, layer.getSize(), file)) {
+                return false;
+            }
+            timer.add(Files.size(file));
+            return true;
+        };
+    }
+
+    /**
+     * Open a blob stream according to a fetch policy of its own, the download being shared by several builds
+     * @param listener The listener of the build starting the download, receiving its retries
+     * @param operation The request description
+     * @param step Open the stream
+     * @return The blob stream
+     */
+    private static InputStream fetchBlob(
+            TaskListener listener, String operation, OrasFetchPolicy.Step<InputStream> step) throws IOException {
+        try {
+            return OrasFetchPolicy.shared(listener).call(operation, step);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Select the layer holding the script or repository
+     * @param manifest The manifest
+     * @param containerRef The container reference, for error messages
+     * @return The layer, with a digest
+     */
+    static Layer selectLayer(Manifest manifest, String containerRef) {
+        Layer layer = findLayer(manifest);
+        if (layer == null) {
+            throw new IllegalArgumentException("No layer with media type %s or %s found in the container reference: %s"
+                    .formatted(SCRIPT_MEDIA_TYPE, String.join(", ", REPO_MEDIA_TYPES), containerRef));
+        }
+        String digest = layer.getDigest();
+        if (digest == null || digest.isEmpty()) {
+            throw new IllegalArgumentException("No digest found for the container reference: " + containerRef);
+        }
+        return layer;
     }
 
-    private FilePath getDownloadFolder(FlowExecutionOwner owner) throws IOException {
-        FilePath dir;
-        if (owner.getExecutable().getParent() instanceof TopLevelItem) {
-            FilePath baseWorkspace = Jenkins.get()
-                    .getWorkspaceFor((TopLevelItem) owner.getExecutable().getParent());
-            if (baseWorkspace == null) {
-                throw new IOException(Jenkins.get().getDisplayName() + " may be offline");
+    @Nullable
+    private static Layer findLayer(Manifest manifest) {
+        if (manifest.getLayers().size() == 1) {
+            return manifest.getLayers().get(0);
+        }
+        return manifest.getLayers().stream()
+                .filter(l -> Objects.equals(SCRIPT_MEDIA_TYPE, l.getMediaType())
+                        || REPO_MEDIA_TYPES.contains(l.getMediaType()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Fail unless the layer is an archive in one of {@link #REPO_MEDIA_TYPES}
+     * @param layer The selected layer
+     */
+    static void ensureSupported(Layer layer) {
+        if (!OrasArchives.isSupported(layer.getMediaType())) {
+            throw new IllegalArgumentException("Unsupported repository layer media type %s, expected one of %s"
+                    .formatted(layer.getMediaType(), String.join(", ", REPO_MEDIA_TYPES)));
+        }
+    }
+
+    /**
+     * Download the layer of a manifest into the local cache
+     * @param registry The registry client
+     * @param containerRef The container reference
+     * @param manifest The manifest
+     * @param scriptPath The script path if the artifact is a repository
+     */
+    static void prefetch(Registry registry, String containerRef, Manifest manifest, @Nullable String scriptPath)
+            throws IOException, InterruptedException {
+        ensureArtifactType(scriptPath, manifest);
+        ContainerRef ref = ContainerRef.parse(containerRef);
+        Layer layer = selectLayer(manifest, containerRef);
+        String digest = layer.getDigest();
+        String script;
+        if (hasScriptPath(scriptPath)) {
+            OrasBlobCache.BlobSource source = () -> registry.fetchBlob(ref.withDigest(digest));
+            if (!OrasGlobalConfiguration.get().isValidateScripts()) {
+                OrasBlobCache.get().getArchive(digest, source);
+                return;
+            }
+            try (InputStream is = OrasBlobCache.get().openArchive(digest, source)) {
+                script = OrasArchives.readEntry(
+                        is, layer.getMediaType(), scriptPath, OrasGlobalConfiguration.get().getMaxScriptSize());
             }
-            dir = baseWorkspace.withSuffix(getFilePathSuffix() + "cps");
         } else {
-            throw new AbortException("Cannot check out in non-top-level build");
+            script = OrasBlobCache.get()
+                    .getScript(digest, layer.getSize(), () -> registry.fetchBlob(ref.withDigest(digest)));
+        }
+        if (OrasGlobalConfiguration.get().isValidateScripts()) {
+            OrasScriptValidator.Verdict verdict =
+                    OrasScriptValidator.get().validate(OrasScriptValidator.key(digest, scriptPath), script);
+            if (!verdict.valid()) {
+                LOG.warning(() -> "Pipeline script of container %s with digest %s is invalid: %s"
+                        .formatted(containerRef, digest, verdict.error()));
+            }
         }
-        return dir;
     }
 
-    private static String getFilePathSuffix() {
-        return System.getProperty(WorkspaceList.class.getName(), "@");
+    /**
+     * Get the registry client configured by this definition
+     * @param item The item using the definition
+     * @return The registry client
+     */
+    Registry getRegistry(Item item) {
+        return buildRegistry(item, credentialsId, insecure, containerRef);
+    }
+
+    /**
+     * @return The key grouping definitions of the same reference and credentials ID, for reporting
+     */
+    String getResolutionKey() {
+        return resolutionKey(credentialsId, insecure, containerRef);
     }
 
-    private static Registry buildRegistry(Item item, String credentialsId, boolean insecure) {
+    /**
+     * @param item The item using the definition
+     * @return The key of the resolutions of the reference for the credentials of the item
+     */
+    String getResolutionKey(Item item) {
+        return resolutionKey(credentialsId, insecure, containerRef, getCredentials(item, credentialsId));
+    }
+
+    /**
+     * Find an action recording the digests to use for this reference, passed when scheduling the build such as by
+     * {@link OrasTagWatcher}. The Rebuild action of the Rebuilder plugin doesn't pass it.
+     */
+    @Nullable
+    private OrasBuildAction getPinnedAction(List<? extends Action> actions) {
+        for (Action a : actions) {
+            if (a instanceof OrasBuildAction action
+                    && Objects.equals(this.containerRef, action.getContainerRef())
+                    && action.getPinnedRef() != null) {
+                return action;
+            }
+        }
+        return null;
+    }
+
+    static String resolutionKey(String credentialsId, boolean insecure, String containerRef) {
+        return "%s|%s|%s".formatted(Util.fixNull(credentialsId), insecure, containerRef);
+    }
+
+    /**
+     * Key of the resolutions of a reference, including a fingerprint of the credentials actually used, so a manifest
+     * resolved with some credentials is never served to a job resolving other credentials for the same ID
+     */
+    static String resolutionKey(
+            String credentialsId,
+            boolean insecure,
+            String containerRef,
+            @Nullable UsernamePasswordCredentials credentials) {
+        return resolutionKey(credentialsId, insecure, containerRef) + "|" + OrasRegistryPool.fingerprint(credentials);
+    }
+
+    private static boolean hasScriptPath(String scriptPath) {
+        return scriptPath != null && !scriptPath.isEmpty();
+    }
+
+    static Registry buildRegistry(Item item, String credentialsId, boolean insecure, String containerRef) {
+        return buildRegistry(credentialsId, insecure, containerRef, getCredentials(item, credentialsId));
+    }
+
+    /**
+     * Get a registry client for already resolved credentials
+     * @param credentialsId The credentials ID if any
+     * @param insecure Insecure flag
+     * @param containerRef The container reference
+     * @param credentials The credentials resolved for the credentials ID
+     * @return The registry client
+     */
+    static Registry buildRegistry(
+            String credentialsId,
+            boolean insecure,
+            String containerRef,
+            @Nullable UsernamePasswordCredentials credentials) {
+        if (credentialsId != null && !credentialsId.isEmpty() && credentials == null) {
+            throw new IllegalArgumentException("No credentials found with ID: " + credentialsId);
+        }
+        OrasRegistryPool.Key key = OrasRegistryPool.key(
+                ContainerRef.parse(containerRef).getRegistry(), credentialsId, insecure, credentials);
+        return OrasRegistryPool.get().get(key, () -> newRegistry(insecure, credentials));
+    }
+
+    private static Registry newRegistry(boolean insecure, @Nullable UsernamePasswordCredentials credentials) {
         Registry.Builder builder = Registry.builder().defaults();
         if (insecure) {
             builder = builder.insecure();
         }
-        if (credentialsId == null || credentialsId.isEmpty()) {
-            return builder.build();
-        }
-        UsernamePasswordCredentials credentials = getCredentials(item, credentialsId);
         if (credentials == null) {
-            throw new IllegalArgumentException("No credentials found with ID: " + credentialsId);
+            return builder.build();
         }
-
         return builder.defaults(
                         credentials.getUsername(), credentials.getPassword().getPlainText())
                 .build();
@@ -241,6 +554,10 @@ public class CpsOrasFlowDefinition extends FlowDefinition {
         if (credentialsId == null || credentialsId.isEmpty()) {
             return null;
         }
+        return OrasCredentialsCache.get().get(item, credentialsId, () -> lookupCredentials(item, credentialsId));
+    }
+
+    private static @Nullable StandardUsernamePasswordCredentials lookupCredentials(Item item, String credentialsId) {
         return CredentialsMatchers.firstOrNull(
                 CredentialsProvider.lookupCredentialsInItem(
                         StandardUsernamePasswordCredentials.class, item, ACL.SYSTEM2, Collections.emptyList()),
@@ -249,7 +566,7 @@ public class CpsOrasFlowDefinition extends FlowDefinition {
                         CredentialsMatchers.instanceOf(StandardUsernamePasswordCredentials.class)));
     }
 
-    private static void ensureArtifactType(String scriptPath, Manifest manifest) {
+    static void ensureArtifactType(String scriptPath, Manifest manifest) {
         if (!hasScriptPath(scriptPath)
                 && !Objects.equals(
                         ARTIFACT_TYPE_SCRIPT.getMediaType(),
@@ -266,6 +583,11 @@ public class CpsOrasFlowDefinition extends FlowDefinition {
                     "The container reference does not point to a valid repository manifest. Make sure to set %s artifact type when pushing the artifact. Found artifact type %s instead"
                             .formatted(ARTIFACT_TYPE_REPO, manifest.getArtifactType()));
         }
+        // Only the selected layer is read, a missing one is reported when selecting it
+        Layer layer = hasScriptPath(scriptPath) ? findLayer(manifest) : null;
+        if (layer != null) {
+            ensureSupported(layer);
+        }
     }
 
     @Extension
@@ -282,6 +604,10 @@ public class CpsOrasFlowDefinition extends FlowDefinition {
         @SuppressWarnings("unused")
         @POST
         public ListBoxModel doFillCredentialsIdItems(@AncestorInPath Item item, @QueryParameter String credentialsId) {
+            return fillCredentialsIdItems(item, credentialsId);
+        }
+
+        static ListBoxModel fillCredentialsIdItems(Item item, String credentialsId) {
             final StandardListBoxModel result = new StandardListBoxModel();
             if (item == null) {
                 if (!Jenkins.get().hasPermission(Jenkins.ADMINISTER)) {
@@ -322,7 +648,7 @@ public class CpsOrasFlowDefinition extends FlowDefinition {
             }
             try {
                 UsernamePasswordCredentials credentials = getCredentials(item, credentialsId);
-                Registry registry = buildRegistry(item, credentialsId, false);
+                Registry registry = buildRegistry(credentialsId, insecure, containerRef, credentials);
                 ContainerRef ref = ContainerRef.parse(containerRef);
                 Manifest manifest = registry.getManifest(ref);
                 try {
@@ -0,0 +1,183 @@
+package io.jenkins.plugins.workfloworas;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarFile;
+
+/**
+ * A decompressed repository archive with an index of its files, so a file is read with a single memory-mapped access
+ * instead of a scan of the archive.
+ * The index is persisted next to the archive and checked against a checksum and the archive size when loaded.
+ */
+final class OrasArchiveIndex {
+
+    private static final int MAGIC = 0x4f524958;
+    private static final int VERSION = 1;
+
+    /**
+     * Location of a file content in the archive
+     */
+    record Entry(long offset, long length) {}
+
+    private final Path tar;
+    private final Map<String, Entry> entries;
+
+    private OrasArchiveIndex(Path tar, Map<String, Entry> entries) {
+        this.tar = tar;
+        this.entries = entries;
+    }
+
+    /**
+     * Index a decompressed archive and persist the index
+     * @param tar The decompressed tarball
+     * @param index The index file to write
+     * @return The index
+     */
+    static OrasArchiveIndex build(Path tar, Path index) throws IOException {
+        Map<String, Entry> entries = new HashMap<>();
+        try (TarFile tarFile = new TarFile(tar)) {
+            for (TarArchiveEntry entry : tarFile.getEntries()) {
+                if (!entry.isFile() || entry.isSparse()) {
+                    continue;
+                }
+                Path path = Path.of(entry.getName()).normalize();
+                if (path.isAbsolute() || path.startsWith("..")) {
+                    continue;
+                }
+                // Same as an extraction, the last entry of a path wins
+                entries.put(path.toString(), new Entry(entry.getDataOffset(), entry.getSize()));
+            }
+        }
+        Path tmp = Files.createTempFile(index.getParent(), index.getFileName().toString(), ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            try (DataOutputStream out = new DataOutputStream(
+                    new CheckedOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)), crc))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(Files.size(tar));
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue().offset());
+                    out.writeLong(entry.getValue().length());
+                }
+                out.writeLong(crc.getValue());
+            }
+            Files.move(tmp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return new OrasArchiveIndex(tar, entries);
+    }
+
+    /**
+     * Load a persisted index
+     * @param tar The decompressed tarball
+     * @param index The index file
+     * @return The index
+     * @throws IOException if the index is missing, corrupt or doesn't match the archive
+     */
+    static OrasArchiveIndex load(Path tar, Path index) throws IOException {
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(
+                new CheckedInputStream(new BufferedInputStream(Files.newInputStream(index)), crc))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported archive index " + index);
+            }
+            long tarSize = in.readLong();
+            if (tarSize != Files.size(tar)) {
+                throw new IOException("Archive index " + index + " doesn't match " + tar);
+            }
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Corrupt archive index " + index);
+            }
+            Map<String, Entry> entries = new HashMap<>(Math.min(count, 1 << 20) * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                long offset = in.readLong();
+                long length = in.readLong();
+                if (offset < 0 || length < 0 || offset + length > tarSize) {
+                    throw new IOException("Corrupt archive index " + index);
+                }
+                entries.put(path, new Entry(offset, length));
+            }
+            long checksum = crc.getValue();
+            if (in.readLong() != checksum) {
+                throw new IOException("Corrupt archive index " + index);
+            }
+            return new OrasArchiveIndex(tar, entries);
+        }
+    }
+
+    /**
+     * Read a file of the archive
+     * @param scriptPath The path of the file inside the archive
+     * @param maxSize The maximum size of the file
+     * @return The file content
+     */
+    String read(String scriptPath, long maxSize) throws IOException {
+        try (FileChannel channel = open()) {
+            return read(channel, scriptPath, maxSize);
+        }
+    }
+
+    /**
+     * Read a file of the archive from a channel already opened, so the archive can't be evicted meanwhile
+     * @param channel The channel opened by {@link #open()}
+     * @param scriptPath The path of the file inside the archive
+     * @param maxSize The maximum size of the file
+     * @return The file content
+     */
+    String read(FileChannel channel, String scriptPath, long maxSize) throws IOException {
+        Path target = OrasArchives.normalize(scriptPath);
+        Entry entry = entries.get(target.toString());
+        if (entry == null) {
+            throw new IOException("Script path does not exist in the container: " + target);
+        }
+        OrasScriptReader.checkSize(entry.length(), maxSize);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, entry.offset(), entry.length());
+        return StandardCharsets.UTF_8
+                .newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .decode(buffer)
+                .toString();
+    }
+
+    /**
+     * @return A channel on the decompressed archive
+     */
+    FileChannel open() throws IOException {
+        return FileChannel.open(tar, StandardOpenOption.READ);
+    }
+
+    /**
+     * @return false if the archive was evicted
+     */
+    boolean exists() {
+        return Files.isRegularFile(tar);
+    }
+
+    int size() {
+        return entries.size();
+    }
+}
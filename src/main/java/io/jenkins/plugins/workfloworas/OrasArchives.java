@@ -0,0 +1,208 @@
+package io.jenkins.plugins.workfloworas;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.io.input.CloseShieldInputStream;
+
+/**
+ * Helpers to read repository archives pushed as layers
+ */
+final class OrasArchives {
+
+    private static final Logger LOG = Logger.getLogger(OrasArchives.class.getName());
+
+    /**
+     * Maximum number of bytes decompressed from an archive, so a highly compressed archive can't fill the disk
+     */
+    static long MAX_EXTRACTED_BYTES = SystemProperties.getLong(
+            OrasArchives.class.getName() + ".maxExtractedBytes", 2L * 1024 * 1024 * 1024);
+
+    /**
+     * Maximum number of entries extracted from an archive
+     */
+    static long MAX_ENTRIES = SystemProperties.getLong(OrasArchives.class.getName() + ".maxEntries", 100_000L);
+
+    private OrasArchives() {}
+
+    /**
+     * Extract a repository archive into the target directory.
+     * Only regular files and directories are extracted, links and other entry types are skipped with a warning.
+     * Entries escaping the target directory are rejected, as archives exceeding {@link #MAX_EXTRACTED_BYTES} or
+     * {@link #MAX_ENTRIES}.
+     * @param archive The tarball, compressed according to its media type
+     * @param mediaType The layer media type
+     * @param target The target directory
+     * @return The number of bytes extracted
+     */
+    static long extract(Path archive, String mediaType, Path target) throws IOException {
+        try (InputStream is = Files.newInputStream(archive)) {
+            return extract(is, mediaType, target);
+        }
+    }
+
+    /**
+     * Extract a repository archive stream into the target directory
+     * @param is The tarball stream, compressed according to its media type
+     * @param mediaType The layer media type
+     * @param target The target directory
+     * @return The number of bytes extracted
+     * @see #extract(Path, String, Path)
+     */
+    static long extract(InputStream is, String mediaType, Path target) throws IOException {
+        Path root = target.toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        long size = 0;
+        long entries = 0;
+        List<String> skipped = new ArrayList<>();
+        try (TarArchiveInputStream tar = open(is, mediaType)) {
+            TarArchiveEntry entry;
+            while ((entry = tar.getNextEntry()) != null) {
+                if (++entries > MAX_ENTRIES) {
+                    throw new IOException("Archive has more than %d entries".formatted(MAX_ENTRIES));
+                }
+                Path resolved = root.resolve(entry.getName()).normalize();
+                if (!resolved.startsWith(root)) {
+                    throw new SecurityException("Archive entry outside of target directory: " + entry.getName());
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(resolved);
+                } else if (entry.isFile()) {
+                    Files.createDirectories(resolved.getParent());
+                    size += copy(tar, resolved, MAX_EXTRACTED_BYTES - size);
+                } else {
+                    // Links could point outside of the target directory
+                    skipped.add(entry.getName());
+                }
+            }
+        }
+        if (!skipped.isEmpty()) {
+            LOG.warning(() -> "Skipped %d link or special entries of the archive extracted to %s: %s"
+                    .formatted(skipped.size(), root, String.join(", ", skipped)));
+        }
+        return size;
+    }
+
+    /**
+     * Decompress a repository archive into a plain tarball
+     * @param archive The tarball, compressed according to its media type
+     * @param mediaType The layer media type
+     * @param tar The tarball to create
+     */
+    static void decompress(Path archive, String mediaType, Path tar) throws IOException {
+        try (InputStream is = Files.newInputStream(archive)) {
+            decompress(is, mediaType, tar);
+        }
+    }
+
+    /**
+     * Decompress a repository archive stream into a plain tarball.
+     * The stream is left open, so the bytes following the compressed data can still be read.
+     * @param is The tarball stream, compressed according to its media type
+     * @param mediaType The layer media type
+     * @param tar The tarball to create
+     */
+    static void decompress(InputStream is, String mediaType, Path tar) throws IOException {
+        try (InputStream decompressed = decompress(CloseShieldInputStream.wrap(is), mediaType)) {
+            copy(decompressed, tar, MAX_EXTRACTED_BYTES);
+        }
+    }
+
+    /**
+     * Copy a stream into a file, replacing it
+     * @param limit The maximum number of bytes to copy
+     * @return The number of bytes copied
+     * @throws IOException if the stream exceeds the limit
+     */
+    private static long copy(InputStream is, Path file, long limit) throws IOException {
+        long size = 0;
+        try (OutputStream os = Files.newOutputStream(file)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                size += read;
+                if (size > limit) {
+                    throw new IOException("Archive exceeds the maximum extracted size of %d bytes"
+                            .formatted(MAX_EXTRACTED_BYTES));
+                }
+                os.write(buffer, 0, read);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Read a single file from a repository archive without extracting it.
+     * The whole archive is scanned, so the last entry of the script path wins as when extracting.
+     * @param is The tarball stream, compressed according to its media type
+     * @param mediaType The layer media type
+     * @param scriptPath The path of the file inside the archive
+     * @param maxSize The maximum size of the file
+     * @return The file content
+     */
+    static String readEntry(InputStream is, String mediaType, String scriptPath, long maxSize) throws IOException {
+        Path target = normalize(scriptPath);
+        String script = null;
+        try (TarArchiveInputStream tar = open(is, mediaType)) {
+            TarArchiveEntry entry;
+            while ((entry = tar.getNextEntry()) != null) {
+                if (entry.isFile() && target.equals(Path.of(entry.getName()).normalize())) {
+                    script = OrasScriptReader.read(tar, null, entry.getSize(), maxSize);
+                }
+            }
+        }
+        if (script == null) {
+            throw new IOException("Script path does not exist in the container: " + target);
+        }
+        return script;
+    }
+
+    /**
+     * Normalize a script path, rejecting paths escaping the archive
+     * @param scriptPath The script path
+     * @return The normalized relative path
+     */
+    static Path normalize(String scriptPath) {
+        Path path = Path.of(scriptPath).normalize();
+        if (path.isAbsolute() || path.startsWith("..")) {
+            throw new SecurityException("Only script path inside archive can be selected: " + path);
+        }
+        return path;
+    }
+
+    /**
+     * @return true if archives of the layer media type can be read
+     */
+    static boolean isSupported(String mediaType) {
+        return CpsOrasFlowDefinition.REPO_MEDIA_TYPES.contains(mediaType);
+    }
+
+    private static TarArchiveInputStream open(InputStream is, String mediaType) throws IOException {
+        return new TarArchiveInputStream(decompress(is, mediaType));
+    }
+
+    private static InputStream decompress(InputStream is, String mediaType) throws IOException {
+        if (!isSupported(mediaType)) {
+            throw new IOException("Unsupported repository layer media type " + mediaType);
+        }
+        InputStream buffered = new BufferedInputStream(is);
+        if (CpsOrasFlowDefinition.REPO_TAR_MEDIA_TYPE.equals(mediaType)) {
+            return buffered;
+        }
+        if (CpsOrasFlowDefinition.REPO_ZSTD_MEDIA_TYPE.equals(mediaType)) {
+            return new ZstdCompressorInputStream(buffered);
+        }
+        return new GzipCompressorInputStream(buffered);
+    }
+}
@@ -0,0 +1,700 @@
+package io.jenkins.plugins.workfloworas;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.Util;
+import hudson.init.Terminator;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import org.apache.commons.io.input.CloseShieldInputStream;
+
+/**
+ * Controller-side cache of layer blobs keyed by their digest.
+ * Pipeline scripts are kept in a bounded in-memory LRU, repository archives in a bounded store under
+ * {@code JENKINS_HOME/oras-cache}. Content is verified against its digest before being stored.
+ * A download is shared by all builds needing the same digest and bounded by the fetch timeout, so a hung download is
+ * abandoned for everyone and the next build starts a new one.
+ * Archives are opened under the eviction lock, and the disk bound also covers {@link OrasExtractedArtifacts}.
+ * Lightweight reads stream the archive until it's indexed in the background, keeping only the decompressed copy.
+ * The disk store survives restarts, content held in memory is dropped when Jenkins stops.
+ */
+@Extension
+public final class OrasBlobCache {
+
+    private static final Logger LOG = Logger.getLogger(OrasBlobCache.class.getName());
+
+    /**
+     * Maximum number of bytes of pipeline scripts kept in memory
+     */
+    static long MAX_MEMORY_BYTES =
+            SystemProperties.getLong(OrasBlobCache.class.getName() + ".maxMemoryBytes", 16L * 1024 * 1024);
+
+    /**
+     * Maximum number of bytes of repository archives kept on disk
+     */
+    static long MAX_DISK_BYTES =
+            SystemProperties.getLong(OrasBlobCache.class.getName() + ".maxDiskBytes", 2L * 1024 * 1024 * 1024);
+
+    /**
+     * Maximum number of archive indexes kept in memory
+     */
+    static long MAX_INDEXES = SystemProperties.getLong(OrasBlobCache.class.getName() + ".maxIndexes", 32L);
+
+    /**
+     * Number of times an archive is fetched again when evicted before being opened
+     */
+    private static final int MAX_OPEN_ATTEMPTS = 3;
+
+    /**
+     * Open a stream on the blob content when not found in the cache.
+     * The source is shared by all builds waiting for the same digest, so it must not depend on the build starting it.
+     */
+    @FunctionalInterface
+    interface BlobSource {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Notified whether a blob was served from the cache, or had to be downloaded by this call or another one it waited
+     * for. Notifications may come from the thread of a download shared with other builds.
+     */
+    @FunctionalInterface
+    interface CacheObserver {
+
+        CacheObserver NONE = hit -> {};
+
+        void onRead(boolean hit);
+    }
+
+    /**
+     * Download the blob content directly into a file when not found in the cache
+     */
+    @FunctionalInterface
+    interface FileSource {
+        /**
+         * @param file The file to create
+         * @return false if the blob must be fetched from the {@link BlobSource} instead
+         */
+        boolean download(Path file) throws IOException, InterruptedException;
+    }
+
+    private final LinkedHashMap<String, String> scripts = new LinkedHashMap<>(16, 0.75f, true);
+    private long scriptsBytes;
+
+    private final OrasSingleFlight<String, String> scriptFlights = new OrasSingleFlight<>();
+    private final OrasSingleFlight<String, Path> archiveFlights = new OrasSingleFlight<>();
+
+    private final LinkedHashMap<String, OrasArchiveIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+    private final OrasSingleFlight<String, OrasArchiveIndex> indexFlights = new OrasSingleFlight<>();
+
+    public static OrasBlobCache get() {
+        return ExtensionList.lookupSingleton(OrasBlobCache.class);
+    }
+
+    /**
+     * Drop the scripts and indexes held in memory when Jenkins stops
+     */
+    @Terminator
+    public static void stop() {
+        OrasBlobCache cache = get();
+        synchronized (cache.scripts) {
+            cache.scripts.clear();
+            cache.scriptsBytes = 0;
+        }
+        synchronized (cache.indexes) {
+            cache.indexes.clear();
+        }
+    }
+
+    /**
+     * Get a pipeline script by digest, fetching it from the source on cache miss.
+     * Fetched content is streamed with bounded memory and verified against its size and digest before being cached.
+     * @param digest The layer digest
+     * @param size The layer size, or a negative value if unknown
+     * @param source The source to fetch the blob from
+     * @return The script content
+     */
+    @NonNull
+    String getScript(@NonNull String digest, long size, @NonNull BlobSource source)
+            throws IOException, InterruptedException {
+        return getScript(digest, size, source, CacheObserver.NONE);
+    }
+
+    /**
+     * Get a pipeline script by digest, fetching it from the source on cache miss
+     * @param digest The layer digest
+     * @param size The layer size, or a negative value if unknown
+     * @param source The source to fetch the blob from
+     * @param observer Notified whether the script was cached
+     * @return The script content
+     * @see #getScript(String, long, BlobSource)
+     */
+    @NonNull
+    String getScript(@NonNull String digest, long size, @NonNull BlobSource source, @NonNull CacheObserver observer)
+            throws IOException, InterruptedException {
+        synchronized (scripts) {
+            String script = scripts.get(digest);
+            if (script != null) {
+                observer.onRead(true);
+                return script;
+            }
+        }
+        long maxSize = OrasGlobalConfiguration.get().getMaxScriptSize();
+        OrasScriptReader.checkSize(size, maxSize);
+        String script = scriptFlights.run(digest, sharedTimeout(), () -> fetchScript(digest, size, maxSize, source));
+        observer.onRead(false);
+        return script;
+    }
+
+    private String fetchScript(String digest, long size, long maxSize, BlobSource source) throws IOException {
+        String script;
+        try (InputStream is = source.open()) {
+            script = OrasScriptReader.read(is, digest, size, maxSize);
+        }
+        putScript(digest, script);
+        return script;
+    }
+
+    private void putScript(String digest, String script) {
+        long size = sizeOf(script);
+        if (size > MAX_MEMORY_BYTES) {
+            return;
+        }
+        synchronized (scripts) {
+            String previous = scripts.put(digest, script);
+            if (previous != null) {
+                scriptsBytes -= sizeOf(previous);
+            }
+            scriptsBytes += size;
+            Iterator<Map.Entry<String, String>> it = scripts.entrySet().iterator();
+            while (scriptsBytes > MAX_MEMORY_BYTES && it.hasNext()) {
+                Map.Entry<String, String> eldest = it.next();
+                scriptsBytes -= sizeOf(eldest.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    private static long sizeOf(String script) {
+        return 2L * script.length();
+    }
+
+    /**
+     * Get a repository archive by digest, fetching it from the source on cache miss
+     * @param digest The layer digest
+     * @param source The source to fetch the blob from
+     * @return The path to the archive on the controller
+     */
+    @NonNull
+    Path getArchive(@NonNull String digest, @NonNull BlobSource source) throws IOException, InterruptedException {
+        return getArchive(digest, null, source, CacheObserver.NONE);
+    }
+
+    /**
+     * Get a repository archive by digest, downloading it from the file source or the blob source on cache miss
+     * @param digest The layer digest
+     * @param fileSource The file source to try first, if any
+     * @param source The source to fetch the blob from
+     * @param observer Notified whether the archive was cached
+     * @return The path to the archive on the controller
+     */
+    @NonNull
+    Path getArchive(
+            @NonNull String digest,
+            @CheckForNull FileSource fileSource,
+            @NonNull BlobSource source,
+            @NonNull CacheObserver observer)
+            throws IOException, InterruptedException {
+        Path file = archivePath(digest);
+        if (Files.isRegularFile(file)) {
+            touch(file);
+            observer.onRead(true);
+            return file;
+        }
+        Path fetched = archiveFlights.run(digest, sharedTimeout(), () -> fetchArchive(digest, fileSource, source));
+        observer.onRead(false);
+        return fetched;
+    }
+
+    /**
+     * Open a repository archive by digest, fetching it on cache miss.
+     * The file is opened under the eviction lock, and fetched again if it was evicted before being opened.
+     * @param digest The layer digest
+     * @param source The source to fetch the blob from
+     * @return The archive stream
+     */
+    @NonNull
+    InputStream openArchive(@NonNull String digest, @NonNull BlobSource source)
+            throws IOException, InterruptedException {
+        return openArchive(digest, null, source, CacheObserver.NONE);
+    }
+
+    /**
+     * Open a repository archive by digest, downloading it from the file source or the blob source on cache miss
+     * @param digest The layer digest
+     * @param fileSource The file source to try first, if any
+     * @param source The source to fetch the blob from
+     * @param observer Notified once whether the archive was cached, a miss if it had to be fetched again
+     * @return The archive stream
+     * @see #openArchive(String, BlobSource)
+     */
+    @NonNull
+    InputStream openArchive(
+            @NonNull String digest,
+            @CheckForNull FileSource fileSource,
+            @NonNull BlobSource source,
+            @NonNull CacheObserver observer)
+            throws IOException, InterruptedException {
+        AtomicBoolean hit = new AtomicBoolean(true);
+        for (int attempt = 1; ; attempt++) {
+            getArchive(digest, fileSource, source, h -> hit.compareAndSet(true, h));
+            InputStream is = openCachedArchive(digest);
+            if (is != null) {
+                observer.onRead(hit.get());
+                return is;
+            }
+            if (attempt >= MAX_OPEN_ATTEMPTS) {
+                throw new IOException("Archive " + digest + " was evicted before being read");
+            }
+        }
+    }
+
+    private Path fetchArchive(String digest, @CheckForNull FileSource fileSource, BlobSource source)
+            throws IOException, InterruptedException {
+        Path file = archivePath(digest);
+        if (Files.isRegularFile(file)) {
+            return file;
+        }
+        Files.createDirectories(file.getParent());
+        try {
+            if (fileSource != null && fileSource.download(file)) {
+                evictArchives(file);
+                return file;
+            }
+        } catch (IOException e) {
+            // Progress is kept so the next attempt resumes
+            LOG.log(Level.WARNING, "Unable to download " + digest + ", fetching it as a single stream", e);
+        }
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            MessageDigest md = newMessageDigest(digest);
+            try (InputStream is = source.open();
+                    OutputStream os = Files.newOutputStream(tmp)) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = is.read(buffer)) != -1) {
+                    md.update(buffer, 0, read);
+                    os.write(buffer, 0, read);
+                }
+            }
+            verify(digest, format(digest, md.digest()));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        // Progress of a failed range download is useless once the archive is complete
+        OrasRangeDownloader.deleteProgress(file);
+        evictArchives(file);
+        return file;
+    }
+
+    /**
+     * Read a file of a repository archive through its index, if the archive was already indexed.
+     * The decompressed archive is opened under the eviction lock.
+     * @param digest The layer digest
+     * @param scriptPath The path of the file inside the archive
+     * @param maxSize The maximum size of the file
+     * @return The file content, or null if the archive isn't indexed yet or was evicted
+     */
+    @CheckForNull
+    String readIndexed(@NonNull String digest, @NonNull String scriptPath, long maxSize) throws IOException {
+        return readIndexed(digest, scriptPath, maxSize, CacheObserver.NONE);
+    }
+
+    /**
+     * Read a file of a repository archive through its index, if the archive was already indexed
+     * @param digest The layer digest
+     * @param scriptPath The path of the file inside the archive
+     * @param maxSize The maximum size of the file
+     * @param observer Notified of a hit when the archive was indexed, not notified otherwise
+     * @return The file content, or null if the archive isn't indexed yet or was evicted
+     * @see #readIndexed(String, String, long)
+     */
+    @CheckForNull
+    String readIndexed(
+            @NonNull String digest, @NonNull String scriptPath, long maxSize, @NonNull CacheObserver observer)
+            throws IOException {
+        OrasArchiveIndex index = findIndex(digest);
+        if (index == null) {
+            return null;
+        }
+        try (FileChannel channel = openIndexed(digest, index)) {
+            if (channel == null) {
+                synchronized (indexes) {
+                    indexes.remove(digest, index);
+                }
+                return null;
+            }
+            observer.onRead(true);
+            return index.read(channel, scriptPath, maxSize);
+        }
+    }
+
+    /**
+     * Read a file of a repository archive not indexed yet, streaming the archive from the cache if stored or from the
+     * source otherwise. The archive is then indexed in the background for the next reads.
+     * A streamed archive is read to its end and verified against the digest before the file is returned, as the
+     * registry or a mirror may serve any content.
+     * @param digest The layer digest
+     * @param mediaType The layer media type, selecting the decompression
+     * @param source The source to stream the blob from
+     * @param indexSource The source to fetch the blob from when indexing it, not tied to any build
+     * @param scriptPath The path of the file inside the archive
+     * @param maxSize The maximum size of the file
+     * @param observer Notified whether the archive was cached
+     * @return The file content
+     */
+    @NonNull
+    String readEntry(
+            @NonNull String digest,
+            String mediaType,
+            @NonNull BlobSource source,
+            @NonNull BlobSource indexSource,
+            @NonNull String scriptPath,
+            long maxSize,
+            @NonNull CacheObserver observer)
+            throws IOException {
+        String script;
+        InputStream cached = openCachedArchive(digest);
+        observer.onRead(cached != null);
+        if (cached != null) {
+            // Verified when stored
+            try (InputStream is = cached) {
+                script = OrasArchives.readEntry(is, mediaType, scriptPath, maxSize);
+            }
+        } else {
+            MessageDigest md = newMessageDigest(digest);
+            try (InputStream is = new DigestInputStream(source.open(), md)) {
+                script = OrasArchives.readEntry(CloseShieldInputStream.wrap(is), mediaType, scriptPath, maxSize);
+                is.transferTo(OutputStream.nullOutputStream());
+            }
+            verify(digest, format(digest, md.digest()));
+        }
+        index(digest, mediaType, indexSource);
+        return script;
+    }
+
+    /**
+     * Index a repository archive in the background, unless already indexed or being indexed.
+     * The archive is decompressed from the cache if stored, or straight from the source otherwise, its digest being
+     * verified without storing the compressed copy.
+     * @param digest The layer digest
+     * @param mediaType The layer media type, selecting the decompression
+     * @param source The source to fetch the blob from
+     * @return The index
+     */
+    CompletableFuture<OrasArchiveIndex> index(@NonNull String digest, String mediaType, @NonNull BlobSource source) {
+        return indexFlights.start(digest, sharedTimeout(), () -> {
+            try {
+                return buildIndex(digest, mediaType, source);
+            } catch (IOException | RuntimeException e) {
+                LOG.log(Level.WARNING, "Unable to index archive " + digest, e);
+                throw e;
+            }
+        });
+    }
+
+    private OrasArchiveIndex buildIndex(String digest, String mediaType, BlobSource source) throws IOException {
+        OrasArchiveIndex index = findIndex(digest);
+        if (index != null) {
+            return index;
+        }
+        Path tar = indexedPath(digest, ".tar");
+        Files.createDirectories(tar.getParent());
+        Path tmp = Files.createTempFile(tar.getParent(), tar.getFileName().toString(), ".tmp");
+        try {
+            InputStream cached = openCachedArchive(digest);
+            if (cached != null) {
+                try (InputStream is = cached) {
+                    OrasArchives.decompress(is, mediaType, tmp);
+                }
+            } else {
+                MessageDigest md = newMessageDigest(digest);
+                try (InputStream is = new DigestInputStream(source.open(), md)) {
+                    OrasArchives.decompress(is, mediaType, tmp);
+                    // Bytes after the compressed data are part of the digest too
+                    is.transferTo(OutputStream.nullOutputStream());
+                }
+                verify(digest, format(digest, md.digest()));
+            }
+            Files.move(tmp, tar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        index = OrasArchiveIndex.build(tar, indexedPath(digest, ".idx"));
+        putIndex(digest, index);
+        evictArchives(tar);
+        return index;
+    }
+
+    /**
+     * Find the index of an archive in memory, or load it from disk
+     * @return The index, or null if missing or corrupt
+     */
+    @CheckForNull
+    private OrasArchiveIndex findIndex(String digest) {
+        synchronized (indexes) {
+            OrasArchiveIndex index = indexes.get(digest);
+            if (index != null) {
+                return index;
+            }
+        }
+        Path indexFile = indexedPath(digest, ".idx");
+        if (!Files.isRegularFile(indexFile)) {
+            return null;
+        }
+        try {
+            OrasArchiveIndex index = OrasArchiveIndex.load(indexedPath(digest, ".tar"), indexFile);
+            putIndex(digest, index);
+            return index;
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Unable to load index of " + digest, e);
+            return null;
+        }
+    }
+
+    private void putIndex(String digest, OrasArchiveIndex index) {
+        synchronized (indexes) {
+            indexes.put(digest, index);
+            Iterator<OrasArchiveIndex> it = indexes.values().iterator();
+            while (indexes.size() > MAX_INDEXES && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    @CheckForNull
+    private synchronized FileChannel openIndexed(String digest, OrasArchiveIndex index) throws IOException {
+        if (!index.exists()) {
+            return null;
+        }
+        // Both files are ranked by last modification on eviction
+        touch(indexedPath(digest, ".tar"));
+        touch(indexedPath(digest, ".idx"));
+        return index.open();
+    }
+
+    /**
+     * Open a stored archive under the eviction lock
+     * @return The archive stream, or null if not stored
+     */
+    @CheckForNull
+    private synchronized InputStream openCachedArchive(String digest) throws IOException {
+        Path file = archivePath(digest);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        touch(file);
+        return Files.newInputStream(file);
+    }
+
+    private static Duration sharedTimeout() {
+        return OrasGlobalConfiguration.get().getFetchTimeoutDuration();
+    }
+
+    /**
+     * Remove all entries from the cache, except extracted archives still leased by a build
+     */
+    public void purge() throws IOException {
+        synchronized (scripts) {
+            scripts.clear();
+            scriptsBytes = 0;
+        }
+        synchronized (indexes) {
+            indexes.clear();
+        }
+        for (String store : List.of("blobs", "indexed")) {
+            Util.deleteRecursive(new File(getRootDir(), store));
+        }
+        OrasExtractedArtifacts.get().purge();
+    }
+
+    /**
+     * @return The number of scripts held in memory
+     */
+    public int getScriptCount() {
+        synchronized (scripts) {
+            return scripts.size();
+        }
+    }
+
+    /**
+     * Evict the least recently used archives once the disk bound is exceeded.
+     * Extracted archives not leased are evicted first, being extracted again from their cached archive.
+     * @param keep The archive just stored, if any
+     */
+    synchronized void evictArchives(@CheckForNull Path keep) {
+        List<Path> files = new ArrayList<>();
+        for (String store : List.of("blobs", "indexed")) {
+            Path root = getRootDir().toPath().resolve(store);
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            try (Stream<Path> stream = Files.walk(root)) {
+                stream.filter(Files::isRegularFile)
+                        .filter(OrasBlobCache::isComplete)
+                        .forEach(files::add);
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Unable to list cached archives", e);
+                return;
+            }
+        }
+        long total = files.stream().mapToLong(OrasBlobCache::sizeOf).sum()
+                + OrasExtractedArtifacts.get().getSize();
+        if (total > MAX_DISK_BYTES) {
+            total -= OrasExtractedArtifacts.get().evict(total - MAX_DISK_BYTES);
+        }
+        files.sort(Comparator.comparing(OrasBlobCache::lastModified));
+        for (Path file : files) {
+            if (total <= MAX_DISK_BYTES) {
+                break;
+            }
+            if (keep != null && (file.equals(keep) || file.equals(sibling(keep, ".idx")))) {
+                continue;
+            }
+            long size = sizeOf(file);
+            try {
+                Files.deleteIfExists(file);
+                total -= size;
+                LOG.fine(() -> "Evicted cached archive " + file);
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Unable to evict cached archive " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Temporary and partial downloads are never evicted, but still removed by {@link #purge()}
+     */
+    private static boolean isComplete(Path file) {
+        String name = file.getFileName().toString();
+        return !name.endsWith(".tmp") && !name.endsWith(".part") && !name.endsWith(".chunks");
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Unable to update last modified time of " + file, e);
+        }
+    }
+
+    private Path archivePath(String digest) {
+        String[] parts = splitDigest(digest);
+        return getRootDir().toPath().resolve("blobs").resolve(parts[0]).resolve(parts[1]);
+    }
+
+    /**
+     * Decompressed archives and their indexes are stored as {@code <hex>.tar} and {@code <hex>.idx}
+     */
+    private Path indexedPath(String digest, String extension) {
+        String[] parts = splitDigest(digest);
+        return getRootDir().toPath().resolve("indexed").resolve(parts[0]).resolve(parts[1] + extension);
+    }
+
+    private static Path sibling(Path file, String extension) {
+        String name = file.getFileName().toString();
+        int idx = name.lastIndexOf('.');
+        return file.resolveSibling((idx > 0 ? name.substring(0, idx) : name) + extension);
+    }
+
+    static File getRootDir() {
+        return new File(Jenkins.get().getRootDir(), "oras-cache");
+    }
+
+    static String[] splitDigest(String digest) {
+        int idx = digest.indexOf(':');
+        if (idx <= 0 || idx == digest.length() - 1) {
+            throw new IllegalArgumentException("Invalid digest: " + digest);
+        }
+        String algorithm = digest.substring(0, idx);
+        String hex = digest.substring(idx + 1);
+        if (!algorithm.matches("[a-z0-9]+") || !hex.matches("[a-f0-9]+")) {
+            throw new IllegalArgumentException("Invalid digest: " + digest);
+        }
+        return new String[] {algorithm, hex};
+    }
+
+    /**
+     * Create a message digest matching the algorithm of the given digest
+     * @param digest The expected digest such as sha256:...
+     * @return The message digest
+     */
+    static MessageDigest newMessageDigest(String digest) {
+        String algorithm =
+                switch (splitDigest(digest)[0]) {
+                    case "sha256" -> "SHA-256";
+                    case "sha512" -> "SHA-512";
+                    default -> throw new IllegalArgumentException("Unsupported digest algorithm: " + digest);
+                };
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String format(String digest, byte[] hash) {
+        return splitDigest(digest)[0] + ":" + HexFormat.of().formatHex(hash);
+    }
+
+    static void verify(String expected, String actual) throws IOException {
+        if (!expected.equals(actual)) {
+            throw new IOException("Digest mismatch, expected %s but got %s".formatted(expected, actual));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package io.jenkins.plugins.workfloworas;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Action;
+import hudson.model.InvisibleAction;
+import hudson.model.Queue;
+import java.util.List;
+import java.util.Objects;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Record the exact artifact used by a build.
+ * When passed while scheduling a build, the pipeline is fetched by these digests instead of resolving the reference again.
+ */
+@ExportedBean
+public class OrasBuildAction extends InvisibleAction implements Queue.QueueAction {
+
+    /**
+     * The reference as configured on the job
+     */
+    private final String containerRef;
+
+    /**
+     * The digest of the resolved manifest
+     */
+    private final String manifestDigest;
+
+    /**
+     * The digest of the layer containing the script or repository
+     */
+    private final String layerDigest;
+
+    public OrasBuildAction(@NonNull String containerRef, @CheckForNull String manifestDigest, @NonNull String layerDigest) {
+        this.containerRef = containerRef;
+        this.manifestDigest = manifestDigest;
+        this.layerDigest = layerDigest;
+    }
+
+    @Exported
+    public String getContainerRef() {
+        return containerRef;
+    }
+
+    @Exported
+    @CheckForNull
+    public String getManifestDigest() {
+        return manifestDigest;
+    }
+
+    @Exported
+    public String getLayerDigest() {
+        return layerDigest;
+    }
+
+    /**
+     * @return The reference pinned to the manifest digest, or null if the manifest digest is unknown
+     */
+    @Exported
+    @CheckForNull
+    public String getPinnedRef() {
+        if (manifestDigest == null || manifestDigest.isEmpty()) {
+            return null;
+        }
+        return pin(containerRef, manifestDigest);
+    }
+
+    /**
+     * Replace the tag or digest of a reference by the given digest
+     * @param reference The reference such as my-registry/my-container:latest
+     * @param digest The digest
+     * @return The reference such as my-registry/my-container@sha256:...
+     */
+    static String pin(String reference, String digest) {
+        String repository = reference;
+        int at = repository.indexOf('@');
+        if (at >= 0) {
+            repository = repository.substring(0, at);
+        }
+        int colon = repository.lastIndexOf(':');
+        if (colon > repository.lastIndexOf('/')) {
+            repository = repository.substring(0, colon);
+        }
+        return repository + "@" + digest;
+    }
+
+    @Override
+    public boolean shouldSchedule(List<Action> actions) {
+        for (Action action : actions) {
+            if (action instanceof OrasBuildAction other) {
+                return !Objects.equals(layerDigest, other.layerDigest);
+            }
+        }
+        return true;
+    }
+}
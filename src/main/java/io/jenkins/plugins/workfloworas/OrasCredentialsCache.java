@@ -0,0 +1,76 @@
+package io.jenkins.plugins.workfloworas;
+
+import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Item;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import jenkins.util.SystemProperties;
+
+/**
+ * Resolved credentials by item and credentials ID, so builds don't scan all credentials visible to the item.
+ * Entries are dropped when a credentials store is saved, and after a TTL for credentials providers not saving anything.
+ */
+final class OrasCredentialsCache {
+
+    /**
+     * Number of seconds a resolution is kept
+     */
+    static long TTL = SystemProperties.getLong(OrasCredentialsCache.class.getName() + ".ttl", 300L);
+
+    private static final OrasCredentialsCache INSTANCE = new OrasCredentialsCache();
+
+    private record Key(String item, String credentialsId) {}
+
+    private record Entry(Optional<StandardUsernamePasswordCredentials> credentials, Instant resolvedAt) {}
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private OrasCredentialsCache() {}
+
+    static OrasCredentialsCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the credentials of an item, resolving them on cache miss
+     * @param item The item or null for global context
+     * @param credentialsId The credentials ID
+     * @param lookup Resolve the credentials
+     * @return The credentials or null if not found
+     */
+    @CheckForNull
+    StandardUsernamePasswordCredentials get(
+            @CheckForNull Item item,
+            @NonNull String credentialsId,
+            @NonNull Supplier<StandardUsernamePasswordCredentials> lookup) {
+        Key key = new Key(item != null ? item.getFullName() : "", credentialsId);
+        Instant now = Instant.now();
+        Entry entry = entries.get(key);
+        if (entry == null || now.isAfter(entry.resolvedAt().plus(Duration.ofSeconds(TTL)))) {
+            entry = new Entry(Optional.ofNullable(lookup.get()), now);
+            entries.put(key, entry);
+        }
+        return entry.credentials().orElse(null);
+    }
+
+    /**
+     * Drop all resolutions
+     */
+    void invalidate() {
+        entries.clear();
+    }
+
+    /**
+     * Drop the resolutions of the items of a folder
+     * @param folder The full name of the folder
+     */
+    void invalidate(@NonNull String folder) {
+        entries.keySet().removeIf(k -> k.item().equals(folder) || k.item().startsWith(folder + "/"));
+    }
+}
@@ -0,0 +1,28 @@
+package io.jenkins.plugins.workfloworas;
+
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+
+/**
+ * Drop resolved credentials when a credentials store is saved, so updated or deleted credentials are not used anymore.
+ * Pooled registry clients don't need to be dropped, they are keyed by a fingerprint of the credentials they use.
+ * Folder credentials are saved with their folder, so any folder save drops the resolutions of the items below it.
+ */
+@Extension
+@SuppressWarnings("unused")
+public class OrasCredentialsListener extends SaveableListener {
+
+    @Override
+    public void onChange(Saveable o, XmlFile file) {
+        if (o instanceof SystemCredentialsProvider) {
+            OrasCredentialsCache.get().invalidate();
+        } else if (o instanceof Item folder && o instanceof ItemGroup) {
+            OrasCredentialsCache.get().invalidate(folder.getFullName());
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package io.jenkins.plugins.workfloworas;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.Util;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.init.Terminator;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+
+/**
+ * Repository archives extracted once per digest under {@code JENKINS_HOME/oras-cache/extracted} and shared by all
+ * builds reading a script from them.
+ * Each build holds a {@link Lease} while reading, and an extracted archive is deleted once it wasn't leased for
+ * {@link #IDLE_MILLIS}, or earlier when not leased and the disk bound of {@link OrasBlobCache} is exceeded.
+ * Archives extracted before a restart are not tracked, so they are deleted when Jenkins starts.
+ */
+@Extension
+public final class OrasExtractedArtifacts {
+
+    private static final Logger LOG = Logger.getLogger(OrasExtractedArtifacts.class.getName());
+
+    /**
+     * Number of milliseconds an extracted archive is kept after its last use
+     */
+    static long IDLE_MILLIS = SystemProperties.getLong(
+            OrasExtractedArtifacts.class.getName() + ".idleMillis", TimeUnit.MINUTES.toMillis(10));
+
+    private static final String TMP_PREFIX = ".tmp-";
+    private static final String EVICTED_SUFFIX = ".evicted-";
+
+    /**
+     * Source of the archive to extract on first use, opened so it can't be evicted while being extracted
+     */
+    @FunctionalInterface
+    interface ArchiveSource {
+        InputStream open() throws IOException, InterruptedException;
+    }
+
+    private static final class Entry {
+        private int leases;
+        private long lastUse;
+        private long size;
+    }
+
+    /**
+     * Use of an extracted archive, preventing its eviction until closed
+     */
+    final class Lease implements Closeable {
+
+        private final String digest;
+        private final Path root;
+        private boolean closed;
+
+        private Lease(String digest, Path root) {
+            this.digest = digest;
+            this.root = root;
+        }
+
+        /**
+         * @return The directory of the extracted archive
+         */
+        Path getRoot() {
+            return root;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(digest);
+            }
+        }
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final OrasSingleFlight<String, Long> flights = new OrasSingleFlight<>();
+    private boolean stopped;
+
+    /**
+     * Archives extracted before a restart are not tracked, remove them in the background
+     */
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void deleteLeftovers() {
+        try {
+            Path root = OrasBlobCache.getRootDir().toPath().resolve("extracted");
+            if (!Files.isDirectory(root)) {
+                return;
+            }
+            Path trash = evictedPath(root);
+            Files.move(root, trash, StandardCopyOption.ATOMIC_MOVE);
+            Timer.get().submit(() -> {
+                try {
+                    Util.deleteRecursive(trash.toFile());
+                } catch (IOException e) {
+                    LOG.log(Level.WARNING, "Unable to delete extracted archives " + trash, e);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            LOG.log(Level.WARNING, "Unable to delete previously extracted archives", e);
+        }
+    }
+
+    /**
+     * Stop tracking archives when Jenkins stops, so pending evictions don't delete archives extracted after a restart
+     */
+    @Terminator
+    public static void stop() {
+        OrasExtractedArtifacts artifacts = get();
+        synchronized (artifacts.entries) {
+            artifacts.stopped = true;
+            artifacts.entries.clear();
+        }
+    }
+
+    static OrasExtractedArtifacts get() {
+        return ExtensionList.lookupSingleton(OrasExtractedArtifacts.class);
+    }
+
+    /**
+     * Lease the extracted archive of a digest, extracting it on first use
+     * @param digest The layer digest
+     * @param mediaType The layer media type
+     * @param archive The source of the archive
+     * @return The lease, to close once the content was read
+     */
+    @NonNull
+    Lease acquire(@NonNull String digest, String mediaType, @NonNull ArchiveSource archive)
+            throws IOException, InterruptedException {
+        return acquire(digest, mediaType, archive, OrasBlobCache.CacheObserver.NONE);
+    }
+
+    /**
+     * Lease the extracted archive of a digest, extracting it on first use
+     * @param digest The layer digest
+     * @param mediaType The layer media type
+     * @param archive The source of the archive, notifying the observer itself when opened
+     * @param observer Notified of a hit when already extracted, and of a miss when extracted by another call
+     * @return The lease, to close once the content was read
+     */
+    @NonNull
+    Lease acquire(
+            @NonNull String digest,
+            String mediaType,
+            @NonNull ArchiveSource archive,
+            @NonNull OrasBlobCache.CacheObserver observer)
+            throws IOException, InterruptedException {
+        Path dir = extractedPath(digest);
+        synchronized (entries) {
+            // Leased before the extraction, so it can't be evicted before it's used
+            entries.computeIfAbsent(digest, d -> new Entry()).leases++;
+        }
+        boolean leased = false;
+        try {
+            if (Files.isDirectory(dir)) {
+                observer.onRead(true);
+            } else {
+                AtomicBoolean opened = new AtomicBoolean();
+                long size = flights.run(digest, () -> extract(dir, mediaType, () -> {
+                    opened.set(true);
+                    return archive.open();
+                }));
+                if (!opened.get()) {
+                    observer.onRead(false);
+                }
+                synchronized (entries) {
+                    Entry entry = entries.get(digest);
+                    entry.size = Math.max(entry.size, size);
+                }
+                OrasBlobCache.get().evictArchives(null);
+            }
+            leased = true;
+            return new Lease(digest, dir);
+        } finally {
+            if (!leased) {
+                release(digest);
+            }
+        }
+    }
+
+    /**
+     * @return The number of bytes extracted
+     */
+    private static long extract(Path dir, String mediaType, ArchiveSource archive)
+            throws IOException, InterruptedException {
+        if (Files.isDirectory(dir)) {
+            return 0;
+        }
+        Files.createDirectories(dir.getParent());
+        Path tmp = Files.createTempDirectory(dir.getParent(), TMP_PREFIX + dir.getFileName());
+        try {
+            long size;
+            try (InputStream is = archive.open()) {
+                size = OrasArchives.extract(is, mediaType, tmp);
+            }
+            Files.move(tmp, dir, StandardCopyOption.ATOMIC_MOVE);
+            return size;
+        } finally {
+            if (Files.exists(tmp)) {
+                Util.deleteRecursive(tmp.toFile());
+            }
+        }
+    }
+
+    private void release(String digest) {
+        synchronized (entries) {
+            Entry entry = entries.get(digest);
+            if (entry == null) {
+                return;
+            }
+            entry.leases--;
+            entry.lastUse = System.currentTimeMillis();
+            if (entry.leases > 0) {
+                return;
+            }
+        }
+        Timer.get().schedule(() -> evictIfIdle(digest), IDLE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void evictIfIdle(String digest) {
+        Path trash;
+        synchronized (entries) {
+            Entry entry = entries.get(digest);
+            if (stopped
+                    || entry != null
+                            && (entry.leases > 0 || System.currentTimeMillis() - entry.lastUse < IDLE_MILLIS)) {
+                // Used again meanwhile, a later release schedules another check. Untracked once Jenkins stopped.
+                return;
+            }
+            trash = remove(digest);
+        }
+        delete(trash);
+    }
+
+    /**
+     * @return The number of bytes of the extracted archives, leased or not
+     */
+    long getSize() {
+        synchronized (entries) {
+            return entries.values().stream().mapToLong(e -> e.size).sum();
+        }
+    }
+
+    /**
+     * Evict archives not leased, least recently used first, until enough bytes were freed
+     * @param bytes The number of bytes to free
+     * @return The number of bytes freed
+     */
+    long evict(long bytes) {
+        List<Path> trashes = new ArrayList<>();
+        long freed = 0;
+        synchronized (entries) {
+            List<Map.Entry<String, Entry>> idle = new ArrayList<>();
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                if (entry.getValue().leases == 0) {
+                    idle.add(entry);
+                }
+            }
+            idle.sort(Comparator.comparingLong(e -> e.getValue().lastUse));
+            for (Map.Entry<String, Entry> entry : idle) {
+                if (freed >= bytes) {
+                    break;
+                }
+                freed += entry.getValue().size;
+                trashes.add(remove(entry.getKey()));
+            }
+        }
+        trashes.forEach(OrasExtractedArtifacts::delete);
+        return freed;
+    }
+
+    /**
+     * Delete all archives not leased. Leased archives and extractions in progress are kept.
+     */
+    void purge() throws IOException {
+        Path root = OrasBlobCache.getRootDir().toPath().resolve("extracted");
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        List<Path> trashes = new ArrayList<>();
+        synchronized (entries) {
+            try (Stream<Path> algorithms = Files.list(root)) {
+                for (Path algorithm : algorithms.toList()) {
+                    if (!Files.isDirectory(algorithm)) {
+                        continue;
+                    }
+                    try (Stream<Path> dirs = Files.list(algorithm)) {
+                        for (Path dir : dirs.toList()) {
+                            String name = dir.getFileName().toString();
+                            if (name.startsWith(TMP_PREFIX) || name.contains(EVICTED_SUFFIX)) {
+                                // Extraction in progress, or already being deleted
+                                continue;
+                            }
+                            String digest = algorithm.getFileName() + ":" + name;
+                            Entry entry = entries.get(digest);
+                            if (entry == null || entry.leases == 0) {
+                                trashes.add(remove(digest));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        trashes.forEach(OrasExtractedArtifacts::delete);
+    }
+
+    /**
+     * Forget an archive and rename its directory under the lock, so a new lease extracts again instead of reading a
+     * directory being deleted
+     * @return The renamed directory to delete, or null if none
+     */
+    @CheckForNull
+    private Path remove(String digest) {
+        entries.remove(digest);
+        Path dir = extractedPath(digest);
+        if (!Files.isDirectory(dir)) {
+            return null;
+        }
+        try {
+            Path trash = evictedPath(dir);
+            Files.move(dir, trash, StandardCopyOption.ATOMIC_MOVE);
+            return trash;
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Unable to evict extracted archive " + dir, e);
+            return null;
+        }
+    }
+
+    private static void delete(@CheckForNull Path trash) {
+        if (trash == null) {
+            return;
+        }
+        try {
+            Util.deleteRecursive(trash.toFile());
+            LOG.fine(() -> "Evicted extracted archive " + trash);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Unable to delete extracted archive " + trash, e);
+        }
+    }
+
+    private static Path evictedPath(Path dir) {
+        return dir.resolveSibling(dir.getFileName() + EVICTED_SUFFIX + UUID.randomUUID());
+    }
+
+    private static Path extractedPath(String digest) {
+        String[] parts = OrasBlobCache.splitDigest(digest);
+        return OrasBlobCache.getRootDir().toPath().resolve("extracted").resolve(parts[0]).resolve(parts[1]);
+    }
+}
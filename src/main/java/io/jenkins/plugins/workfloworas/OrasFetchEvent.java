@@ -0,0 +1,39 @@
+package io.jenkins.plugins.workfloworas;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event recorded for each phase of a pipeline fetch
+ */
+@Name("io.jenkins.plugins.workfloworas.Fetch")
+@Label("ORAS Pipeline Fetch")
+@Description("A phase of fetching a pipeline script from an ORAS registry")
+@Category({"Jenkins", "ORAS"})
+@StackTrace(false)
+class OrasFetchEvent extends Event {
+
+    @Label("Registry")
+    String registry;
+
+    @Label("Reference")
+    String reference;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Cache Hit")
+    boolean cacheHit;
+
+    @Label("Success")
+    boolean success;
+}
@@ -0,0 +1,214 @@
+package io.jenkins.plugins.workfloworas;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Timing, transfer and cache metrics of pipeline fetches, by registry
+ */
+final class OrasFetchMetrics {
+
+    /**
+     * Phases of a pipeline fetch
+     */
+    enum Phase {
+        CREDENTIALS,
+        MANIFEST,
+        ARTIFACT_TYPE,
+        BLOB,
+        SCRIPT_READ
+    }
+
+    /**
+     * Upper bounds in milliseconds of the histogram buckets, the last bucket is unbounded
+     */
+    static final long[] BUCKETS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private static final OrasFetchMetrics INSTANCE = new OrasFetchMetrics();
+
+    private final Map<String, RegistryMetrics> registries = new ConcurrentHashMap<>();
+
+    private OrasFetchMetrics() {}
+
+    static OrasFetchMetrics get() {
+        return INSTANCE;
+    }
+
+    @NonNull
+    RegistryMetrics forRegistry(@NonNull String host) {
+        return registries.computeIfAbsent(host, RegistryMetrics::new);
+    }
+
+    List<RegistryMetrics> getRegistries() {
+        return new ArrayList<>(registries.values());
+    }
+
+    void reset() {
+        registries.clear();
+    }
+
+    @ExportedBean(defaultVisibility = 2)
+    public static final class RegistryMetrics {
+
+        private final String host;
+        private final Map<Phase, PhaseMetrics> phases = new EnumMap<>(Phase.class);
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder cacheHits = new LongAdder();
+        private final LongAdder cacheMisses = new LongAdder();
+
+        private RegistryMetrics(String host) {
+            this.host = host;
+            for (Phase phase : Phase.values()) {
+                phases.put(phase, new PhaseMetrics(phase));
+            }
+        }
+
+        @Exported
+        public String getHost() {
+            return host;
+        }
+
+        @Exported
+        public List<PhaseMetrics> getPhases() {
+            return new ArrayList<>(phases.values());
+        }
+
+        @Exported
+        public long getBytes() {
+            return bytes.sum();
+        }
+
+        @Exported
+        public long getCacheHits() {
+            return cacheHits.sum();
+        }
+
+        @Exported
+        public long getCacheMisses() {
+            return cacheMisses.sum();
+        }
+
+        @Exported
+        public long getErrors() {
+            return phases.values().stream().mapToLong(PhaseMetrics::getErrors).sum();
+        }
+
+        PhaseMetrics phase(Phase phase) {
+            return phases.get(phase);
+        }
+
+        void addBytes(long count) {
+            bytes.add(count);
+        }
+
+        void cacheHit() {
+            cacheHits.increment();
+        }
+
+        void cacheMiss() {
+            cacheMisses.increment();
+        }
+    }
+
+    @ExportedBean(defaultVisibility = 3)
+    public static final class PhaseMetrics {
+
+        private final Phase phase;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS.length + 1);
+
+        private PhaseMetrics(Phase phase) {
+            this.phase = phase;
+        }
+
+        void record(long nanos, boolean success) {
+            count.increment();
+            totalNanos.add(nanos);
+            if (!success) {
+                errors.increment();
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while (bucket < BUCKETS.length && millis > BUCKETS[bucket]) {
+                bucket++;
+            }
+            histogram.incrementAndGet(bucket);
+        }
+
+        @Exported
+        public String getPhase() {
+            return phase.name();
+        }
+
+        @Exported
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Exported
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        @Exported
+        public long getTotalMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(totalNanos.sum());
+        }
+
+        @Exported
+        public long[] getHistogram() {
+            long[] values = new long[histogram.length()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = histogram.get(i);
+            }
+            return values;
+        }
+
+        /**
+         * @return The upper bound in milliseconds of the bucket holding the median, -1 if unbounded
+         */
+        @Exported
+        public long getP50Millis() {
+            return percentile(0.5);
+        }
+
+        /**
+         * @return The upper bound in milliseconds of the bucket holding the 99th percentile, -1 if unbounded
+         */
+        @Exported
+        public long getP99Millis() {
+            return percentile(0.99);
+        }
+
+        private long percentile(double percentile) {
+            long[] values = getHistogram();
+            long total = 0;
+            for (long value : values) {
+                total += value;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile * total);
+            long seen = 0;
+            for (int i = 0; i < values.length; i++) {
+                seen += values[i];
+                if (seen >= rank) {
+                    return i < BUCKETS.length ? BUCKETS[i] : -1;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package io.jenkins.plugins.workfloworas;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.TaskListener;
+import hudson.util.DaemonThreadFactory;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.NamingThreadFactory;
+import jenkins.util.SystemProperties;
+import land.oras.exception.OrasException;
+
+/**
+ * Bound the time spent fetching a pipeline from a registry: a total deadline for the whole fetch, a timeout for each
+ * request and retries with exponential backoff and full jitter for transient failures.
+ * Fetches run on virtual threads when the runtime supports them, so waiting on a registry doesn't hold a platform
+ * thread, and a hung connection is interrupted when its timeout expires.
+ */
+final class OrasFetchPolicy {
+
+    private static final Logger LOG = Logger.getLogger(OrasFetchPolicy.class.getName());
+
+    /**
+     * Delay before the first retry, doubled on each attempt
+     */
+    static /* not final for testing */ long INITIAL_BACKOFF_MILLIS =
+            SystemProperties.getLong(OrasFetchPolicy.class.getName() + ".initialBackoffMillis", 500L);
+
+    /**
+     * Maximum delay between two attempts
+     */
+    static /* not final for testing */ long MAX_BACKOFF_MILLIS =
+            SystemProperties.getLong(OrasFetchPolicy.class.getName() + ".maxBackoffMillis", 10_000L);
+
+    /**
+     * HTTP statuses worth retrying
+     */
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(408, 429, 500, 502, 503, 504);
+
+    private static final ExecutorService EXECUTOR = newExecutor();
+
+    /**
+     * A fetch step
+     * @param <T> The result type
+     */
+    @FunctionalInterface
+    interface Step<T> {
+        T call() throws Exception;
+    }
+
+    private final TaskListener listener;
+    private final Duration requestTimeout;
+    private final int maxAttempts;
+    private final long deadlineNanos;
+
+    OrasFetchPolicy(
+            @NonNull TaskListener listener,
+            @NonNull Duration deadline,
+            @NonNull Duration requestTimeout,
+            int maxAttempts) {
+        this.listener = listener;
+        this.requestTimeout = requestTimeout;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.deadlineNanos = System.nanoTime() + deadline.toNanos();
+    }
+
+    /**
+     * Start a fetch with the global settings
+     * @param listener The build listener, receiving retry attempts
+     * @return The policy, its deadline starting now
+     */
+    static OrasFetchPolicy fromConfiguration(@NonNull TaskListener listener) {
+        OrasGlobalConfiguration config = OrasGlobalConfiguration.get();
+        return new OrasFetchPolicy(
+                listener,
+                Duration.ofSeconds(config.getFetchTimeout()),
+                Duration.ofSeconds(config.getRequestTimeout()),
+                config.getFetchAttempts());
+    }
+
+    /**
+     * Start a fetch shared by several builds, such as the download of a blob, with the global settings.
+     * Its retries are logged to the build which started it, and its deadline starts now rather than with any of the
+     * builds.
+     * @param listener The listener of the build starting the fetch
+     * @return The policy
+     */
+    static OrasFetchPolicy shared(@NonNull TaskListener listener) {
+        return fromConfiguration(listener);
+    }
+
+    /**
+     * @return The timeout of each request
+     */
+    @NonNull
+    Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * Run a whole fetch within the total deadline
+     * @param step The fetch
+     * @return The fetch result
+     * @throws IOException if the deadline expires
+     */
+    <T> T run(@NonNull Step<T> step) throws Exception {
+        return within(step, remainingNanos(), "Fetch");
+    }
+
+    /**
+     * Send a request, retrying transient failures until the attempts or the total deadline are exhausted
+     * @param operation The request description for the build log
+     * @param step The request
+     * @return The request result
+     */
+    <T> T call(@NonNull String operation, @NonNull Step<T> step) throws Exception {
+        return call(operation, step, true);
+    }
+
+    /**
+     * Send a request shared with other builds, retrying transient failures until the attempts or the total deadline are
+     * exhausted. The request must bound itself with {@link #getRequestTimeout()}: a timeout of this caller alone would
+     * leave the shared request in flight, and the retry would wait for it again.
+     * @param operation The request description for the build log
+     * @param step The request
+     * @return The request result
+     */
+    <T> T callShared(@NonNull String operation, @NonNull Step<T> step) throws Exception {
+        return call(operation, step, false);
+    }
+
+    private <T> T call(String operation, Step<T> step, boolean bounded) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            long timeout = Math.min(requestTimeout.toNanos(), remainingNanos());
+            try {
+                T result;
+                if (bounded) {
+                    result = within(step, timeout, operation);
+                } else if (timeout <= 0) {
+                    throw new RequestTimeoutException(operation + " exceeded the fetch deadline");
+                } else {
+                    result = step.call();
+                }
+                if (attempt > 1) {
+                    listener.getLogger().printf("%s succeeded on attempt %d/%d%n", operation, attempt, maxAttempts);
+                }
+                return result;
+            } catch (Exception e) {
+                if (attempt >= maxAttempts || !isRetryable(e)) {
+                    throw e;
+                }
+                long backoff = backoffMillis(attempt);
+                if (TimeUnit.MILLISECONDS.toNanos(backoff) >= remainingNanos()) {
+                    throw e;
+                }
+                listener.getLogger()
+                        .printf(
+                                "%s failed on attempt %d/%d (%s), retrying in %d ms%n",
+                                operation, attempt, maxAttempts, e.getMessage(), backoff);
+                LOG.log(Level.FINE, operation + " failed on attempt " + attempt, e);
+                Thread.sleep(backoff);
+            }
+        }
+    }
+
+    private long remainingNanos() {
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+
+    /**
+     * Exponential backoff with full jitter
+     */
+    static long backoffMillis(int attempt) {
+        long ceiling = Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+    }
+
+    /**
+     * @return true if the failure is likely transient
+     */
+    static boolean isRetryable(Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OrasException e) {
+                return RETRYABLE_STATUSES.contains(e.getStatusCode());
+            }
+            if (cause instanceof ConnectException
+                    || cause instanceof SocketTimeoutException
+                    || cause instanceof HttpTimeoutException
+                    || cause instanceof RequestTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T> T within(Step<T> step, long timeoutNanos, String operation) throws Exception {
+        if (timeoutNanos <= 0) {
+            throw new RequestTimeoutException(operation + " exceeded the fetch deadline");
+        }
+        Future<T> future = EXECUTOR.submit((Callable<T>) step::call);
+        try {
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new RequestTimeoutException(
+                    "%s timed out after %d ms".formatted(operation, TimeUnit.NANOSECONDS.toMillis(timeoutNanos)));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Use virtual threads when available, without requiring Java 21 to compile
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) MethodHandles.publicLookup()
+                    .findStatic(
+                            Executors.class,
+                            "newVirtualThreadPerTaskExecutor",
+                            MethodType.methodType(ExecutorService.class))
+                    .invoke();
+        } catch (Throwable e) {
+            LOG.log(Level.FINE, "Virtual threads are not available, using platform threads", e);
+            return Executors.newCachedThreadPool(
+                    new NamingThreadFactory(new DaemonThreadFactory(), OrasFetchPolicy.class.getSimpleName()));
+        }
+    }
+
+    /**
+     * A request or the whole fetch took too long
+     */
+    static final class RequestTimeoutException extends InterruptedIOException {
+        RequestTimeoutException(String message) {
+            super(message);
+        }
+    }
+}
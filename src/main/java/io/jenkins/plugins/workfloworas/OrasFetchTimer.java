@@ -0,0 +1,138 @@
+package io.jenkins.plugins.workfloworas;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time the phases of a single pipeline fetch, feeding {@link OrasFetchMetrics} and JFR events
+ */
+final class OrasFetchTimer {
+
+    /**
+     * A phase of the fetch
+     * @param <T> The result type
+     */
+    @FunctionalInterface
+    interface Step<T> {
+        T call() throws Exception;
+    }
+
+    private final String reference;
+    private final OrasFetchMetrics.RegistryMetrics metrics;
+    private final Map<OrasFetchMetrics.Phase, Long> durations = new EnumMap<>(OrasFetchMetrics.Phase.class);
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    OrasFetchTimer(String registry, String reference) {
+        this.reference = reference;
+        this.metrics = OrasFetchMetrics.get().forRegistry(registry);
+    }
+
+    /**
+     * Run and time a phase
+     * @param phase The phase
+     * @param step The phase to run
+     * @return The result of the phase
+     */
+    <T> T time(OrasFetchMetrics.Phase phase, Step<T> step) throws Exception {
+        OrasFetchEvent event = new OrasFetchEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long bytesBefore = bytes.sum();
+        long hitsBefore = cacheHits.sum();
+        long missesBefore = cacheMisses.sum();
+        boolean success = false;
+        try {
+            T result = step.call();
+            success = true;
+            return result;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            durations.merge(phase, nanos, Long::sum);
+            metrics.phase(phase).record(nanos, success);
+            event.end();
+            if (event.shouldCommit()) {
+                event.registry = metrics.getHost();
+                event.reference = reference;
+                event.phase = phase.name();
+                event.bytes = bytes.sum() - bytesBefore;
+                event.cacheHit = cacheHits.sum() > hitsBefore && cacheMisses.sum() == missesBefore;
+                event.success = success;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Record whether a blob was served from the cache, passed as {@link OrasBlobCache.CacheObserver}
+     * @param hit true if served from the cache
+     */
+    void cacheRead(boolean hit) {
+        if (hit) {
+            cacheHits.increment();
+            metrics.cacheHit();
+        } else {
+            cacheMisses.increment();
+            metrics.cacheMiss();
+        }
+    }
+
+    /**
+     * Count the bytes read from the registry, possibly on the thread of a download shared with other builds
+     * @param is The stream returned by the registry
+     * @return The counting stream
+     */
+    InputStream count(InputStream is) {
+        return new FilterInputStream(is) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    add(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = super.read(b, off, len);
+                if (read > 0) {
+                    add(read);
+                }
+                return read;
+            }
+        };
+    }
+
+    /**
+     * Count bytes downloaded outside of a counted stream
+     * @param count The number of bytes
+     */
+    void add(long count) {
+        bytes.add(count);
+        metrics.addBytes(count);
+    }
+
+    /**
+     * @return A one line summary of the phases
+     */
+    String summary() {
+        StringJoiner joiner = new StringJoiner(", ", "ORAS fetch timings: ", "");
+        long total = 0;
+        for (Map.Entry<OrasFetchMetrics.Phase, Long> entry : durations.entrySet()) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(entry.getValue());
+            total += millis;
+            joiner.add("%s %d ms".formatted(entry.getKey().name().toLowerCase(), millis));
+        }
+        joiner.add("total %d ms".formatted(total));
+        joiner.add("%d bytes downloaded".formatted(bytes.sum()));
+        return joiner.toString();
+    }
+}
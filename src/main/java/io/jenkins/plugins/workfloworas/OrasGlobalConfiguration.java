@@ -0,0 +1,233 @@
+package io.jenkins.plugins.workfloworas;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.util.FormValidation;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import jenkins.model.GlobalConfiguration;
+import net.sf.json.JSONObject;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest2;
+
+/**
+ * Global settings for pipelines fetched from ORAS registries
+ */
+@Extension
+@Symbol("oras")
+public class OrasGlobalConfiguration extends GlobalConfiguration {
+
+    static final long DEFAULT_MAX_SCRIPT_SIZE = 10L * 1024 * 1024;
+    static final long MAX_SCRIPT_SIZE_LIMIT = 100L * 1024 * 1024;
+    static final int DEFAULT_FETCH_TIMEOUT = 300;
+    static final int DEFAULT_REQUEST_TIMEOUT = 60;
+    static final int DEFAULT_FETCH_ATTEMPTS = 3;
+
+    /**
+     * Number of seconds a tag resolution is trusted without checking the registry
+     */
+    private int resolutionTtl;
+
+    /**
+     * Print a one line summary of the fetch timings on the build console
+     */
+    private boolean logTimings;
+
+    /**
+     * Maximum size in bytes of a pipeline script
+     */
+    private long maxScriptSize = DEFAULT_MAX_SCRIPT_SIZE;
+
+    /**
+     * Pull-through mirrors of registries
+     */
+    private List<OrasMirror> mirrors = new ArrayList<>();
+
+    /**
+     * Send a second request to another endpoint when the first one is slower than usual
+     */
+    private boolean hedgeRequests;
+
+    /**
+     * Number of seconds allowed to fetch a pipeline, retries included
+     */
+    private int fetchTimeout = DEFAULT_FETCH_TIMEOUT;
+
+    /**
+     * Number of seconds allowed for a single registry request
+     */
+    private int requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+
+    /**
+     * Maximum number of attempts of a registry request failing with a transient error
+     */
+    private int fetchAttempts = DEFAULT_FETCH_ATTEMPTS;
+
+    /**
+     * Parse new scripts once per digest and fail builds of scripts known to be invalid
+     */
+    private boolean validateScripts;
+
+    public OrasGlobalConfiguration() {
+        load();
+    }
+
+    public static OrasGlobalConfiguration get() {
+        return GlobalConfiguration.all().getInstance(OrasGlobalConfiguration.class);
+    }
+
+    @Override
+    public boolean configure(StaplerRequest2 req, JSONObject json) throws FormException {
+        // Without any mirror the form sends no key, binding alone would keep the previous ones
+        mirrors = new ArrayList<>();
+        req.bindJSON(this, json);
+        return true;
+    }
+
+    public int getResolutionTtl() {
+        return resolutionTtl;
+    }
+
+    @DataBoundSetter
+    public void setResolutionTtl(int resolutionTtl) {
+        this.resolutionTtl = Math.max(0, resolutionTtl);
+        save();
+    }
+
+    public boolean isLogTimings() {
+        return logTimings;
+    }
+
+    @DataBoundSetter
+    public void setLogTimings(boolean logTimings) {
+        this.logTimings = logTimings;
+        save();
+    }
+
+    public long getMaxScriptSize() {
+        return maxScriptSize > 0 ? Math.min(maxScriptSize, MAX_SCRIPT_SIZE_LIMIT) : DEFAULT_MAX_SCRIPT_SIZE;
+    }
+
+    @DataBoundSetter
+    public void setMaxScriptSize(long maxScriptSize) {
+        // Scripts are held in memory
+        this.maxScriptSize = Math.min(maxScriptSize, MAX_SCRIPT_SIZE_LIMIT);
+        save();
+    }
+
+    public int getFetchTimeout() {
+        return fetchTimeout > 0 ? fetchTimeout : DEFAULT_FETCH_TIMEOUT;
+    }
+
+    @DataBoundSetter
+    public void setFetchTimeout(int fetchTimeout) {
+        this.fetchTimeout = fetchTimeout;
+        save();
+    }
+
+    public int getRequestTimeout() {
+        return requestTimeout > 0 ? requestTimeout : DEFAULT_REQUEST_TIMEOUT;
+    }
+
+    @DataBoundSetter
+    public void setRequestTimeout(int requestTimeout) {
+        this.requestTimeout = requestTimeout;
+        save();
+    }
+
+    public int getFetchAttempts() {
+        return fetchAttempts > 0 ? fetchAttempts : DEFAULT_FETCH_ATTEMPTS;
+    }
+
+    @DataBoundSetter
+    public void setFetchAttempts(int fetchAttempts) {
+        this.fetchAttempts = fetchAttempts;
+        save();
+    }
+
+    public boolean isValidateScripts() {
+        return validateScripts;
+    }
+
+    @DataBoundSetter
+    public void setValidateScripts(boolean validateScripts) {
+        this.validateScripts = validateScripts;
+        save();
+    }
+
+    @NonNull
+    public List<OrasMirror> getMirrors() {
+        return mirrors != null ? Collections.unmodifiableList(mirrors) : List.of();
+    }
+
+    @DataBoundSetter
+    public void setMirrors(List<OrasMirror> mirrors) {
+        this.mirrors = mirrors != null ? new ArrayList<>(mirrors) : new ArrayList<>();
+        save();
+    }
+
+    public boolean isHedgeRequests() {
+        return hedgeRequests;
+    }
+
+    @DataBoundSetter
+    public void setHedgeRequests(boolean hedgeRequests) {
+        this.hedgeRequests = hedgeRequests;
+        save();
+    }
+
+    @NonNull
+    Duration getResolutionTtlDuration() {
+        return Duration.ofSeconds(resolutionTtl);
+    }
+
+    Duration getRequestTimeoutDuration() {
+        return Duration.ofSeconds(getRequestTimeout());
+    }
+
+    Duration getFetchTimeoutDuration() {
+        return Duration.ofSeconds(getFetchTimeout());
+    }
+
+    @SuppressWarnings("unused")
+    public FormValidation doCheckMaxScriptSize(@QueryParameter long value) {
+        if (value <= 0) {
+            return FormValidation.error("Must be a positive number of bytes");
+        }
+        if (value > MAX_SCRIPT_SIZE_LIMIT) {
+            return FormValidation.error("Must not exceed %d bytes".formatted(MAX_SCRIPT_SIZE_LIMIT));
+        }
+        return FormValidation.ok();
+    }
+
+    @SuppressWarnings("unused")
+    public FormValidation doCheckFetchTimeout(@QueryParameter int value) {
+        return checkPositive(value, "Must be a positive number of seconds");
+    }
+
+    @SuppressWarnings("unused")
+    public FormValidation doCheckRequestTimeout(@QueryParameter int value) {
+        return checkPositive(value, "Must be a positive number of seconds");
+    }
+
+    @SuppressWarnings("unused")
+    public FormValidation doCheckFetchAttempts(@QueryParameter int value) {
+        return checkPositive(value, "Must be at least 1");
+    }
+
+    private static FormValidation checkPositive(int value, String message) {
+        return value > 0 ? FormValidation.ok() : FormValidation.error(message);
+    }
+
+    @SuppressWarnings("unused")
+    public FormValidation doCheckResolutionTtl(@QueryParameter int value) {
+        if (value < 0) {
+            return FormValidation.error("Must be a positive number of seconds");
+        }
+        return FormValidation.ok();
+    }
+}
@@ -0,0 +1,193 @@
+package io.jenkins.plugins.workfloworas;
+
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.Item;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import land.oras.ContainerRef;
+import land.oras.Layer;
+import land.oras.Manifest;
+import land.oras.Registry;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.workflow.libs.LibraryRetriever;
+import org.jenkinsci.plugins.workflow.libs.LibraryRetrieverDescriptor;
+import org.kohsuke.stapler.AncestorInPath;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.verb.POST;
+
+/**
+ * Retrieve shared libraries from OCI artifacts of type {@link CpsOrasFlowDefinition#ARTIFACT_TYPE_LIBRARY}.
+ * The library version is the tag or the digest of the artifact. Archives are downloaded once per controller into the
+ * local cache and extracted for each build.
+ */
+public class OrasLibraryRetriever extends LibraryRetriever {
+
+    private static final Pattern TAG = Pattern.compile("[A-Za-z0-9_][A-Za-z0-9._-]{0,127}");
+    private static final Pattern DIGEST = Pattern.compile("[a-z0-9]+:[a-f0-9]{32,}");
+
+    /**
+     * Reference to the repository of the library without tag such as my-registry/my-library
+     */
+    private final String containerRef;
+
+    /**
+     * Credentials ID to retrieve the library
+     */
+    private String credentialsId;
+
+    /**
+     * Insecure flag to allow pulling from insecure registries (without TLS).
+     */
+    private boolean insecure;
+
+    @DataBoundConstructor
+    public OrasLibraryRetriever(String containerRef) {
+        this.containerRef = containerRef;
+    }
+
+    public String getContainerRef() {
+        return containerRef;
+    }
+
+    public String getCredentialsId() {
+        return credentialsId;
+    }
+
+    @DataBoundSetter
+    @SuppressWarnings("unused") // Used by Stapler
+    public void setCredentialsId(String credentialsId) {
+        this.credentialsId = credentialsId;
+    }
+
+    public boolean isInsecure() {
+        return insecure;
+    }
+
+    @DataBoundSetter
+    @SuppressWarnings("unused") // Used by Stapler
+    public void setInsecure(boolean insecure) {
+        this.insecure = insecure;
+    }
+
+    @Override
+    public void retrieve(
+            @NonNull String name,
+            @NonNull String version,
+            boolean changelog,
+            @NonNull FilePath target,
+            @NonNull Run<?, ?> run,
+            @NonNull TaskListener listener)
+            throws Exception {
+        if (target.isRemote()) {
+            throw new AbortException("Libraries can only be retrieved on the controller");
+        }
+        String reference = toReference(containerRef, version);
+        StandardUsernamePasswordCredentials credentials =
+                CpsOrasFlowDefinition.getCredentials(run.getParent(), credentialsId);
+        if (credentials != null) {
+            CredentialsProvider.track(run, credentials);
+        }
+        Registry registry = CpsOrasFlowDefinition.buildRegistry(credentialsId, insecure, reference, credentials);
+        Manifest manifest = OrasManifestResolver.get()
+                .resolve(
+                        registry,
+                        reference,
+                        CpsOrasFlowDefinition.resolutionKey(credentialsId, insecure, reference, credentials),
+                        OrasGlobalConfiguration.get().getResolutionTtlDuration(),
+                        OrasGlobalConfiguration.get().getRequestTimeoutDuration());
+        if (!Objects.equals(
+                CpsOrasFlowDefinition.ARTIFACT_TYPE_LIBRARY.getMediaType(),
+                manifest.getArtifactType().getMediaType())) {
+            throw new AbortException(
+                    "The container reference does not point to a valid library manifest. Make sure to set %s artifact type when pushing the artifact. Found artifact type %s instead"
+                            .formatted(CpsOrasFlowDefinition.ARTIFACT_TYPE_LIBRARY, manifest.getArtifactType()));
+        }
+        Layer layer = CpsOrasFlowDefinition.selectLayer(manifest, reference);
+        CpsOrasFlowDefinition.ensureSupported(layer);
+        String digest = layer.getDigest();
+        listener.getLogger().printf("Using library %s from container %s with digest %s%n", name, reference, digest);
+        ContainerRef ref = ContainerRef.parse(reference);
+        try (InputStream archive =
+                OrasBlobCache.get().openArchive(digest, () -> registry.fetchBlob(ref.withDigest(digest)))) {
+            OrasArchives.extract(archive, layer.getMediaType(), Path.of(target.getRemote()));
+        }
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void retrieve(
+            @NonNull String name,
+            @NonNull String version,
+            @NonNull FilePath target,
+            @NonNull Run<?, ?> run,
+            @NonNull TaskListener listener)
+            throws Exception {
+        retrieve(name, version, false, target, run, listener);
+    }
+
+    @Override
+    public FormValidation validateVersion(@NonNull String name, @NonNull String version, @CheckForNull Item context) {
+        if (!isValidVersion(version)) {
+            return FormValidation.error("Version must be a tag or a digest: " + version);
+        }
+        return FormValidation.ok();
+    }
+
+    static boolean isValidVersion(String version) {
+        return TAG.matcher(version).matches() || DIGEST.matcher(version).matches();
+    }
+
+    /**
+     * Build the reference of a library version
+     * @param containerRef The repository reference without tag
+     * @param version The tag or digest
+     * @return The full reference
+     */
+    static String toReference(String containerRef, String version) throws AbortException {
+        if (!isValidVersion(version)) {
+            throw new AbortException("Version must be a tag or a digest: " + version);
+        }
+        return DIGEST.matcher(version).matches() ? containerRef + "@" + version : containerRef + ":" + version;
+    }
+
+    @Extension
+    @Symbol("oras")
+    @SuppressWarnings("unused")
+    public static class DescriptorImpl extends LibraryRetrieverDescriptor {
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "ORAS";
+        }
+
+        @POST
+        public ListBoxModel doFillCredentialsIdItems(@AncestorInPath Item item, @QueryParameter String credentialsId) {
+            return CpsOrasFlowDefinition.DescriptorImpl.fillCredentialsIdItems(item, credentialsId);
+        }
+
+        public FormValidation doCheckContainerRef(@QueryParameter String value) {
+            if (value == null || value.isBlank()) {
+                return FormValidation.error("Reference is required");
+            }
+            if (value.contains("@") || value.lastIndexOf(':') > value.lastIndexOf('/')) {
+                return FormValidation.error("Reference must not contain a tag or digest, use the library version");
+            }
+            return FormValidation.ok();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package io.jenkins.plugins.workfloworas;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.init.Terminator;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import land.oras.ContainerRef;
+import land.oras.Descriptor;
+import land.oras.Manifest;
+import land.oras.Registry;
+import land.oras.exception.OrasException;
+
+/**
+ * Resolve container references to manifests, keeping parsed manifests by digest.
+ * Tags are revalidated with a HEAD request once their TTL expired, references pinned by digest are confirmed once by
+ * resolution key. Keys include a fingerprint of the credentials, so a cached manifest is only served to callers which
+ * reached the registry with the same access.
+ * Resolutions are held in memory and dropped when Jenkins stops.
+ */
+@Extension
+public final class OrasManifestResolver {
+
+    private static final Logger LOG = Logger.getLogger(OrasManifestResolver.class.getName());
+
+    /**
+     * Maximum number of parsed manifests kept in memory
+     */
+    static int MAX_MANIFESTS = SystemProperties.getInteger(OrasManifestResolver.class.getName() + ".maxManifests", 1000);
+
+    private record Resolution(String digest, Instant resolvedAt) {}
+
+    private final Map<String, Resolution> resolutions = new ConcurrentHashMap<>();
+
+    private final LinkedHashMap<String, Manifest> manifests = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Manifest> eldest) {
+            return size() > MAX_MANIFESTS;
+        }
+    };
+
+    private final OrasSingleFlight<String, Manifest> flights = new OrasSingleFlight<>();
+
+    static OrasManifestResolver get() {
+        return ExtensionList.lookupSingleton(OrasManifestResolver.class);
+    }
+
+    /**
+     * Drop the resolutions and manifests held in memory when Jenkins stops
+     */
+    @Terminator
+    public static void stop() {
+        get().clear();
+    }
+
+    /**
+     * Resolve the manifest of the given reference
+     * @param registry The registry client
+     * @param reference The container reference as configured
+     * @param key The cache key of the reference, including anything that affects access to it
+     * @param ttl How long a previous resolution of a tag is trusted without checking the registry
+     * @param timeout The maximum duration of the requests to the registry, shared by concurrent resolutions
+     * @return The manifest
+     */
+    @NonNull
+    Manifest resolve(
+            @NonNull Registry registry,
+            @NonNull String reference,
+            @NonNull String key,
+            @NonNull Duration ttl,
+            @NonNull Duration timeout)
+            throws IOException, InterruptedException {
+        Manifest cached = getFresh(reference, key, ttl);
+        if (cached != null) {
+            return cached;
+        }
+        // The reference differs from the key when resolved through a mirror, hedged requests must not coalesce
+        return flights.run(key + "|" + reference, timeout, () -> doResolve(registry, reference, key, ttl));
+    }
+
+    /**
+     * Get the manifest of the given reference if it can be used without contacting the registry
+     */
+    @CheckForNull
+    private Manifest getFresh(String reference, String key, Duration ttl) {
+        Resolution resolution = resolutions.get(key);
+        if (isPinned(reference)) {
+            String digest = reference.substring(reference.indexOf('@') + 1);
+            return resolution != null && resolution.digest().equals(digest) ? getManifest(digest) : null;
+        }
+        if (resolution != null && Instant.now().isBefore(resolution.resolvedAt().plus(ttl))) {
+            return getManifest(resolution.digest());
+        }
+        return null;
+    }
+
+    private Manifest doResolve(Registry registry, String reference, String key, Duration ttl) {
+        ContainerRef ref = ContainerRef.parse(reference);
+        if (isPinned(reference)) {
+            String digest = reference.substring(reference.indexOf('@') + 1);
+            Manifest cached = getManifest(digest);
+            // Known from another key, the registry must still confirm this caller can access it
+            if (cached != null && digest.equals(probe(registry, ref))) {
+                resolutions.put(key, new Resolution(digest, Instant.now()));
+                return cached;
+            }
+            return fetch(registry, ref, key, digest);
+        }
+        Resolution resolution = resolutions.get(key);
+        if (resolution != null) {
+            Manifest cached = getManifest(resolution.digest());
+            if (cached != null) {
+                if (Instant.now().isBefore(resolution.resolvedAt().plus(ttl))) {
+                    return cached;
+                }
+                String current = probe(registry, ref);
+                if (resolution.digest().equals(current)) {
+                    resolutions.put(key, new Resolution(current, Instant.now()));
+                    return cached;
+                }
+            }
+        }
+        return fetch(registry, ref, key, null);
+    }
+
+    /**
+     * Fetch the manifest of a tag again, regardless of any previous resolution
+     * @param registry The registry client
+     * @param reference The container reference
+     * @param key The cache key of the reference
+     * @param timeout The maximum duration of the request to the registry
+     * @return The manifest
+     */
+    @NonNull
+    Manifest refresh(
+            @NonNull Registry registry, @NonNull String reference, @NonNull String key, @NonNull Duration timeout)
+            throws IOException, InterruptedException {
+        return flights.run(key, timeout, () -> fetch(registry, ContainerRef.parse(reference), key, null));
+    }
+
+    /**
+     * Record that a reference still points to the given digest, extending its resolution
+     * @param key The cache key of the reference
+     * @param digest The digest returned by the registry
+     * @return true if the digest matches the known resolution
+     */
+    boolean confirm(@NonNull String key, @CheckForNull String digest) {
+        Resolution resolution = resolutions.get(key);
+        if (resolution == null || !resolution.digest().equals(digest) || getManifest(digest) == null) {
+            return false;
+        }
+        resolutions.put(key, new Resolution(digest, Instant.now()));
+        return true;
+    }
+
+    /**
+     * Forget all resolutions and manifests
+     */
+    void clear() {
+        resolutions.clear();
+        synchronized (manifests) {
+            manifests.clear();
+        }
+    }
+
+    static boolean isPinned(String reference) {
+        return reference.contains("@");
+    }
+
+    private Manifest fetch(Registry registry, ContainerRef ref, String key, @CheckForNull String expectedDigest) {
+        Manifest manifest = registry.getManifest(ref);
+        String digest = manifest.getDigest();
+        if (digest == null || digest.isEmpty()) {
+            return manifest;
+        }
+        if (expectedDigest != null && !expectedDigest.equals(digest)) {
+            throw new OrasException(
+                    "Manifest digest mismatch, expected %s but got %s".formatted(expectedDigest, digest));
+        }
+        synchronized (manifests) {
+            manifests.put(digest, manifest);
+        }
+        resolutions.put(key, new Resolution(digest, Instant.now()));
+        return manifest;
+    }
+
+    /**
+     * Get a parsed manifest by digest without contacting the registry
+     * @param digest The manifest digest
+     * @return The manifest if known
+     */
+    @CheckForNull
+    Manifest getManifest(String digest) {
+        synchronized (manifests) {
+            return manifests.get(digest);
+        }
+    }
+
+    /**
+     * Read the current digest of a reference using only a HEAD request
+     * @return The digest or null if the registry doesn't return it
+     */
+    @CheckForNull
+    static String probe(Registry registry, ContainerRef ref) {
+        try {
+            Descriptor descriptor = registry.probeDescriptor(ref);
+            return descriptor.getDigest();
+        } catch (OrasException e) {
+            LOG.log(Level.FINE, "Unable to probe " + ref, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package io.jenkins.plugins.workfloworas;
+
+import hudson.Extension;
+import hudson.model.Api;
+import hudson.model.RootAction;
+import java.util.List;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Expose pipeline fetch metrics on {@code /oras-metrics/api/json} to administrators
+ */
+@Extension
+@ExportedBean
+@SuppressWarnings("unused")
+public class OrasMetricsAction implements RootAction {
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "ORAS Metrics";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "oras-metrics";
+    }
+
+    public Api getApi() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        return new Api(this);
+    }
+
+    @Exported
+    public List<OrasFetchMetrics.RegistryMetrics> getRegistries() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        return OrasFetchMetrics.get().getRegistries();
+    }
+}
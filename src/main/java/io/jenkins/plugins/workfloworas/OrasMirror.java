@@ -0,0 +1,68 @@
+package io.jenkins.plugins.workfloworas;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.util.FormValidation;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+/**
+ * A pull-through mirror serving the same repositories as a registry
+ */
+public class OrasMirror extends AbstractDescribableImpl<OrasMirror> {
+
+    /**
+     * Host of the mirrored registry such as ghcr.io
+     */
+    private final String registry;
+
+    /**
+     * Host of the mirror such as mirror.example.com:5000
+     */
+    private final String mirror;
+
+    @DataBoundConstructor
+    public OrasMirror(String registry, String mirror) {
+        this.registry = registry;
+        this.mirror = mirror;
+    }
+
+    public String getRegistry() {
+        return registry;
+    }
+
+    public String getMirror() {
+        return mirror;
+    }
+
+    @Extension
+    @SuppressWarnings("unused")
+    public static class DescriptorImpl extends Descriptor<OrasMirror> {
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "Registry mirror";
+        }
+
+        public FormValidation doCheckRegistry(@QueryParameter String value) {
+            return checkHost(value);
+        }
+
+        public FormValidation doCheckMirror(@QueryParameter String value) {
+            return checkHost(value);
+        }
+
+        private static FormValidation checkHost(String value) {
+            if (value == null || value.isBlank()) {
+                return FormValidation.error("Host is required");
+            }
+            if (value.contains("/")) {
+                return FormValidation.error("Only the host and optional port are expected");
+            }
+            return FormValidation.ok();
+        }
+    }
+}
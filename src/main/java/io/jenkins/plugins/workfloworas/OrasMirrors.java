@@ -0,0 +1,266 @@
+package io.jenkins.plugins.workfloworas;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.util.DaemonThreadFactory;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.NamingThreadFactory;
+import land.oras.ContainerRef;
+import land.oras.Registry;
+
+/**
+ * Send registry requests to the fastest healthy endpoint among a registry and its configured mirrors.
+ * Latency and errors are tracked by endpoint with moving averages. When hedging is enabled, a second request is sent
+ * to the next endpoint if the first one is slower than usual, and the first successful response wins.
+ */
+final class OrasMirrors {
+
+    private static final Logger LOG = Logger.getLogger(OrasMirrors.class.getName());
+
+    /**
+     * Weight of the last sample in moving averages
+     */
+    private static final double ALPHA = 0.2;
+
+    /**
+     * Error rate above which an endpoint is considered unhealthy
+     */
+    private static final double MAX_ERROR_RATE = 0.5;
+
+    /**
+     * Hedging delay of endpoints without statistics yet
+     */
+    private static final long DEFAULT_HEDGE_DELAY_MILLIS = 1000;
+
+    private static final OrasMirrors INSTANCE = new OrasMirrors();
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+            new NamingThreadFactory(new DaemonThreadFactory(), OrasMirrors.class.getSimpleName()));
+
+    /**
+     * A request to an endpoint
+     * @param <T> The result type
+     */
+    @FunctionalInterface
+    interface Request<T> {
+        /**
+         * @param registry The registry client of the endpoint
+         * @param reference The reference rewritten for the endpoint
+         */
+        T call(Registry registry, String reference) throws Exception;
+    }
+
+    /**
+     * Latency and error statistics of an endpoint
+     */
+    static final class Stats {
+        private double latencyMillis;
+        private double deviationMillis;
+        private double errorRate;
+        private long samples;
+
+        synchronized void record(long millis, boolean success) {
+            if (samples == 0) {
+                latencyMillis = millis;
+            } else if (success) {
+                deviationMillis = (1 - ALPHA) * deviationMillis + ALPHA * Math.abs(millis - latencyMillis);
+                latencyMillis = (1 - ALPHA) * latencyMillis + ALPHA * millis;
+            }
+            errorRate = (1 - ALPHA) * errorRate + ALPHA * (success ? 0 : 1);
+            samples++;
+        }
+
+        synchronized double getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        synchronized double getErrorRate() {
+            return errorRate;
+        }
+
+        synchronized boolean isHealthy() {
+            return errorRate < MAX_ERROR_RATE;
+        }
+
+        /**
+         * @return An estimate of the 95th percentile of the latency, used as hedging delay
+         */
+        synchronized long getHedgeDelayMillis() {
+            if (samples == 0) {
+                return DEFAULT_HEDGE_DELAY_MILLIS;
+            }
+            return Math.max(1, Math.round(latencyMillis + 2 * deviationMillis));
+        }
+    }
+
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    private OrasMirrors() {}
+
+    static OrasMirrors get() {
+        return INSTANCE;
+    }
+
+    Stats stats(String host) {
+        return stats.computeIfAbsent(host, h -> new Stats());
+    }
+
+    /**
+     * Rank the endpoints able to serve a reference, fastest healthy endpoint first
+     * @param reference The reference
+     * @return The reference rewritten for each endpoint, the original reference included
+     */
+    @NonNull
+    List<String> rank(@NonNull String reference) {
+        String host = ContainerRef.parse(reference).getRegistry();
+        List<String> endpoints = new ArrayList<>();
+        endpoints.add(reference);
+        if (reference.startsWith(host + "/")) {
+            for (OrasMirror mirror : OrasGlobalConfiguration.get().getMirrors()) {
+                if (host.equals(mirror.getRegistry())) {
+                    endpoints.add(mirror.getMirror() + reference.substring(host.length()));
+                }
+            }
+        }
+        if (endpoints.size() > 1) {
+            endpoints.sort(Comparator.comparing((String e) -> !stats(hostOf(e)).isHealthy())
+                    .thenComparingDouble(e -> stats(hostOf(e)).getLatencyMillis()));
+        }
+        return endpoints;
+    }
+
+    /**
+     * Send a request to the best endpoint for a reference, falling back to the next endpoints on failure
+     * @param reference The reference
+     * @param registries Get the registry client of a rewritten reference
+     * @param request The request
+     * @return The first successful result
+     */
+    <T> T call(@NonNull String reference, @NonNull Function<String, Registry> registries, @NonNull Request<T> request)
+            throws Exception {
+        List<String> endpoints = rank(reference);
+        if (endpoints.size() == 1) {
+            return timed(endpoints.get(0), registries, request);
+        }
+        if (OrasGlobalConfiguration.get().isHedgeRequests()) {
+            return hedged(endpoints, registries, request);
+        }
+        Exception failure = null;
+        for (String endpoint : endpoints) {
+            try {
+                return timed(endpoint, registries, request);
+            } catch (Exception e) {
+                LOG.log(Level.FINE, "Request to " + endpoint + " failed", e);
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        throw failure;
+    }
+
+    private <T> T hedged(List<String> endpoints, Function<String, Registry> registries, Request<T> request)
+            throws Exception {
+        CompletionService<T> completion = new ExecutorCompletionService<>(EXECUTOR);
+        List<Future<T>> futures = new ArrayList<>();
+        futures.add(completion.submit(() -> timed(endpoints.get(0), registries, request)));
+        int next = 1;
+        int pending = 1;
+        Exception failure = null;
+        try {
+            while (pending > 0) {
+                Future<T> done;
+                if (next < endpoints.size()) {
+                    long delay = stats(hostOf(endpoints.get(next - 1))).getHedgeDelayMillis();
+                    done = completion.poll(delay, TimeUnit.MILLISECONDS);
+                    if (done == null) {
+                        // Slower than usual, hedge on the next endpoint
+                        String endpoint = endpoints.get(next++);
+                        futures.add(completion.submit(() -> timed(endpoint, registries, request)));
+                        pending++;
+                        continue;
+                    }
+                } else {
+                    done = completion.take();
+                }
+                pending--;
+                try {
+                    T result = done.get();
+                    futures.remove(done);
+                    return result;
+                } catch (ExecutionException e) {
+                    futures.remove(done);
+                    Exception cause = e.getCause() instanceof Exception ex ? ex : e;
+                    if (failure == null) {
+                        failure = cause;
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                    if (pending == 0 && next < endpoints.size()) {
+                        String endpoint = endpoints.get(next++);
+                        futures.add(completion.submit(() -> timed(endpoint, registries, request)));
+                        pending++;
+                    }
+                }
+            }
+        } finally {
+            // Losers are left to complete rather than interrupted, so a result they still produce is closed
+            for (Future<T> future : futures) {
+                if (future.isDone()) {
+                    closeQuietly(future);
+                } else {
+                    EXECUTOR.execute(() -> closeQuietly(future));
+                }
+            }
+        }
+        throw failure != null ? failure : new IOException("No endpoint available");
+    }
+
+    private <T> T timed(String endpoint, Function<String, Registry> registries, Request<T> request)
+            throws Exception {
+        Stats endpointStats = stats(hostOf(endpoint));
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = request.call(registries.apply(endpoint), endpoint);
+            success = true;
+            return result;
+        } finally {
+            endpointStats.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), success);
+        }
+    }
+
+    /**
+     * Close the result of a request that lost the race, such as a blob stream, once completed
+     */
+    private static void closeQuietly(Future<?> future) {
+        try {
+            if (future.get() instanceof Closeable closeable) {
+                closeable.close();
+            }
+        } catch (Exception e) {
+            LOG.log(Level.FINE, "Unable to close hedged result", e);
+        }
+    }
+
+    private static String hostOf(String reference) {
+        return ContainerRef.parse(reference).getRegistry();
+    }
+}
@@ -0,0 +1,413 @@
+package io.jenkins.plugins.workfloworas;
+
+import com.cloudbees.plugins.credentials.common.UsernamePasswordCredentials;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.ProxyConfiguration;
+import hudson.util.DaemonThreadFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import jenkins.util.NamingThreadFactory;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+
+/**
+ * Download large blobs with parallel HTTP Range requests into a preallocated file.
+ * Completed chunks are recorded next to the partial file, so a download interrupted by a failure or a controller
+ * restart resumes where it stopped. The final file is verified against the digest before being published.
+ * Each request is bounded by the request timeout, including the transfer of its body.
+ */
+final class OrasRangeDownloader {
+
+    private static final Logger LOG = Logger.getLogger(OrasRangeDownloader.class.getName());
+
+    /**
+     * Minimum size in bytes of a blob to use range requests
+     */
+    static long MIN_SIZE =
+            SystemProperties.getLong(OrasRangeDownloader.class.getName() + ".minSize", 32L * 1024 * 1024);
+
+    /**
+     * Size in bytes of each range request
+     */
+    static long CHUNK_SIZE =
+            SystemProperties.getLong(OrasRangeDownloader.class.getName() + ".chunkSize", 8L * 1024 * 1024);
+
+    /**
+     * Maximum number of range requests in flight for all downloads
+     */
+    static int PARALLELISM = SystemProperties.getInteger(OrasRangeDownloader.class.getName() + ".parallelism", 4);
+
+    /**
+     * Number of attempts for each chunk
+     */
+    static int ATTEMPTS = SystemProperties.getInteger(OrasRangeDownloader.class.getName() + ".attempts", 3);
+
+    private static final Pattern CHALLENGE_PARAM = Pattern.compile("(\\w+)=\"([^\"]*)\"");
+    private static final Pattern TOKEN = Pattern.compile("\"(?:access_)?token\"\\s*:\\s*\"([^\"]+)\"");
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+            PARALLELISM, new NamingThreadFactory(new DaemonThreadFactory(), OrasRangeDownloader.class.getSimpleName()));
+
+    private final String host;
+    private final String repository;
+    private final boolean insecure;
+
+    @CheckForNull
+    private final UsernamePasswordCredentials credentials;
+
+    private final Duration timeout;
+
+    /**
+     * Client honouring the proxy configured in Jenkins when the downloader was created
+     */
+    private final HttpClient client;
+
+    @CheckForNull
+    private volatile String authorization;
+
+    /**
+     * @param host The registry host
+     * @param repository The repository
+     * @param insecure Use HTTP instead of HTTPS
+     * @param credentials The credentials if any
+     * @param timeout The timeout of each request
+     */
+    OrasRangeDownloader(
+            String host,
+            String repository,
+            boolean insecure,
+            @CheckForNull UsernamePasswordCredentials credentials,
+            Duration timeout) {
+        this.host = host;
+        this.repository = repository;
+        this.insecure = insecure;
+        this.credentials = credentials;
+        this.timeout = timeout;
+        this.client = ProxyConfiguration.newHttpClientBuilder()
+                .connectTimeout(Duration.ofSeconds(30))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    /**
+     * Create a downloader for a reference
+     * @param host The registry host as returned by {@link land.oras.ContainerRef#getRegistry()}
+     * @param reference The reference
+     * @param insecure Insecure flag
+     * @param credentials The credentials if any
+     * @param timeout The timeout of each request
+     * @return The downloader
+     */
+    static OrasRangeDownloader of(
+            String host,
+            String reference,
+            boolean insecure,
+            @CheckForNull UsernamePasswordCredentials credentials,
+            Duration timeout) {
+        String path = reference;
+        int at = path.indexOf('@');
+        if (at >= 0) {
+            path = path.substring(0, at);
+        }
+        int colon = path.lastIndexOf(':');
+        if (colon > path.lastIndexOf('/')) {
+            path = path.substring(0, colon);
+        }
+        if (path.startsWith(host + "/")) {
+            path = path.substring(host.length() + 1);
+        } else if (!path.contains("/")) {
+            path = "library/" + path;
+        }
+        return new OrasRangeDownloader(host, path, insecure, credentials, timeout);
+    }
+
+    /**
+     * Download a blob into the given file
+     * @param digest The blob digest
+     * @param size The blob size
+     * @param file The file to create once the download is complete and verified
+     * @return false if the blob is too small or the registry doesn't support range requests
+     */
+    boolean download(String digest, long size, Path file) throws IOException, InterruptedException {
+        if (size < MIN_SIZE) {
+            return false;
+        }
+        URI uri = URI.create("%s://%s/v2/%s/blobs/%s".formatted(insecure ? "http" : "https", host, repository, digest));
+        HttpResponse<Void> head = send(request(uri).method("HEAD", HttpRequest.BodyPublishers.noBody()));
+        if (head.statusCode() != 200
+                || !"bytes".equalsIgnoreCase(head.headers().firstValue("Accept-Ranges").orElse(""))
+                || head.headers().firstValueAsLong("Content-Length").orElse(-1) != size) {
+            LOG.fine(() -> "Range requests not supported for " + uri);
+            return false;
+        }
+        Path part = partPath(file);
+        Path chunks = chunksPath(file);
+        int count = (int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        BitSet done = loadProgress(part, chunks, size);
+        try (RandomAccessFile raf = new RandomAccessFile(part.toFile(), "rw")) {
+            raf.setLength(size);
+        }
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                if (done.get(i)) {
+                    continue;
+                }
+                int index = i;
+                futures.add(EXECUTOR.submit(() -> {
+                    fetchChunk(uri, channel, index, size);
+                    synchronized (done) {
+                        done.set(index);
+                        saveProgress(chunks, done);
+                    }
+                    return null;
+                }));
+            }
+            try {
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (ExecutionException e) {
+                futures.forEach(f -> f.cancel(true));
+                throw new IOException("Unable to download " + uri, e.getCause());
+            } catch (InterruptedException e) {
+                futures.forEach(f -> f.cancel(true));
+                throw e;
+            }
+            channel.force(false);
+        }
+        try {
+            OrasBlobCache.verify(digest, digestOf(part, digest));
+        } catch (IOException e) {
+            Files.deleteIfExists(part);
+            Files.deleteIfExists(chunks);
+            throw e;
+        }
+        Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(chunks);
+        return true;
+    }
+
+    private void fetchChunk(URI uri, FileChannel channel, int index, long size) throws Exception {
+        long start = index * CHUNK_SIZE;
+        long end = Math.min(size, start + CHUNK_SIZE) - 1;
+        IOException failure = null;
+        for (int attempt = 1; attempt <= Math.max(1, ATTEMPTS); attempt++) {
+            try {
+                HttpResponse<InputStream> response =
+                        sendForStream(request(uri).header("Range", "bytes=%d-%d".formatted(start, end)), uri);
+                try (InputStream is = response.body()) {
+                    // The request timeout only covers the headers, closing the body fails a stalled transfer
+                    ScheduledFuture<?> watchdog =
+                            Timer.get().schedule(() -> closeQuietly(is), timeout.toMillis(), TimeUnit.MILLISECONDS);
+                    try {
+                        copyRange(response, is, channel, start, end, uri);
+                    } finally {
+                        watchdog.cancel(false);
+                    }
+                    return;
+                }
+            } catch (IOException e) {
+                failure = e;
+                LOG.fine(() -> "Attempt failed for chunk %d of %s: %s".formatted(index, uri, e.getMessage()));
+            }
+        }
+        throw failure;
+    }
+
+    private static void copyRange(
+            HttpResponse<InputStream> response, InputStream is, FileChannel channel, long start, long end, URI uri)
+            throws IOException {
+        if (response.statusCode() != 206) {
+            throw new IOException(
+                    "Unexpected status %d for range %d-%d of %s".formatted(response.statusCode(), start, end, uri));
+        }
+        long position = start;
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            if (position + read > end + 1) {
+                throw new IOException("Too many bytes for range %d-%d of %s".formatted(start, end, uri));
+            }
+            ByteBuffer bb = ByteBuffer.wrap(buffer, 0, read);
+            while (bb.hasRemaining()) {
+                position += channel.write(bb, position);
+            }
+        }
+        if (position != end + 1) {
+            throw new IOException("Truncated range %d-%d of %s".formatted(start, end, uri));
+        }
+    }
+
+    private static void closeQuietly(InputStream is) {
+        try {
+            is.close();
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Unable to close stalled response", e);
+        }
+    }
+
+    private HttpRequest.Builder request(URI uri) {
+        return HttpRequest.newBuilder(uri).timeout(timeout);
+    }
+
+    private HttpResponse<Void> send(HttpRequest.Builder builder) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(authorize(builder).build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 401) {
+            authenticate(response.headers().firstValue("WWW-Authenticate"));
+            response = client.send(authorize(builder).build(), HttpResponse.BodyHandlers.discarding());
+        }
+        return response;
+    }
+
+    private HttpResponse<InputStream> sendForStream(HttpRequest.Builder builder, URI uri)
+            throws IOException, InterruptedException {
+        HttpResponse<InputStream> response =
+                client.send(authorize(builder).build(), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() == 401) {
+            // Token expired during the download
+            response.body().close();
+            authenticate(response.headers().firstValue("WWW-Authenticate"));
+            response = client.send(authorize(builder).build(), HttpResponse.BodyHandlers.ofInputStream());
+        }
+        int status = response.statusCode();
+        if (status == 301 || status == 302 || status == 303 || status == 307 || status == 308) {
+            // Blob storage redirects must not receive the registry credentials
+            response.body().close();
+            URI location = uri.resolve(response.headers()
+                    .firstValue("Location")
+                    .orElseThrow(() -> new IOException("Redirect without location from " + uri)));
+            HttpRequest.Builder unauthenticated = request(location);
+            response.request().headers().firstValue("Range").ifPresent(range -> unauthenticated.header("Range", range));
+            return client.send(unauthenticated.build(), HttpResponse.BodyHandlers.ofInputStream());
+        }
+        return response;
+    }
+
+    private HttpRequest.Builder authorize(HttpRequest.Builder builder) {
+        String value = authorization;
+        if (value != null) {
+            builder.setHeader("Authorization", value);
+        }
+        return builder;
+    }
+
+    private synchronized void authenticate(Optional<String> challenge) throws IOException, InterruptedException {
+        String header = challenge.orElseThrow(() -> new IOException("Unauthorized without challenge"));
+        String basic = credentials != null
+                ? "Basic " + Base64.getEncoder()
+                        .encodeToString((credentials.getUsername() + ":"
+                                        + credentials.getPassword().getPlainText())
+                                .getBytes(StandardCharsets.UTF_8))
+                : null;
+        if (header.toLowerCase(Locale.ROOT).startsWith("basic")) {
+            if (basic == null) {
+                throw new IOException("Registry requires credentials");
+            }
+            authorization = basic;
+            return;
+        }
+        String realm = null;
+        StringBuilder query = new StringBuilder();
+        Matcher matcher = CHALLENGE_PARAM.matcher(header);
+        while (matcher.find()) {
+            if ("realm".equals(matcher.group(1))) {
+                realm = matcher.group(2);
+            } else {
+                query.append(query.length() == 0 ? "?" : "&")
+                        .append(matcher.group(1))
+                        .append('=')
+                        .append(URLEncoder.encode(matcher.group(2), StandardCharsets.UTF_8));
+            }
+        }
+        if (realm == null) {
+            throw new IOException("Unsupported challenge: " + header);
+        }
+        HttpRequest.Builder request = request(URI.create(realm + query));
+        if (basic != null) {
+            request.header("Authorization", basic);
+        }
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        Matcher token = TOKEN.matcher(response.body());
+        if (response.statusCode() != 200 || !token.find()) {
+            throw new IOException("Unable to get token from " + realm + ", status " + response.statusCode());
+        }
+        authorization = "Bearer " + token.group(1);
+    }
+
+    /**
+     * Delete the progress of a download, once the file was fetched another way
+     * @param file The file being downloaded
+     */
+    static void deleteProgress(Path file) throws IOException {
+        Files.deleteIfExists(partPath(file));
+        Files.deleteIfExists(chunksPath(file));
+    }
+
+    private static Path partPath(Path file) {
+        return file.resolveSibling(file.getFileName() + ".part");
+    }
+
+    private static Path chunksPath(Path file) {
+        return file.resolveSibling(file.getFileName() + ".chunks");
+    }
+
+    private static BitSet loadProgress(Path part, Path chunks, long size) throws IOException {
+        if (Files.isRegularFile(part) && Files.size(part) == size && Files.isRegularFile(chunks)) {
+            BitSet done = BitSet.valueOf(Files.readAllBytes(chunks));
+            LOG.fine(() -> "Resuming download of %s with %d chunks done".formatted(part, done.cardinality()));
+            return done;
+        }
+        Files.deleteIfExists(chunks);
+        return new BitSet();
+    }
+
+    private static void saveProgress(Path chunks, BitSet done) throws IOException {
+        Path tmp = chunks.resolveSibling(chunks.getFileName() + ".tmp");
+        Files.write(tmp, done.toByteArray());
+        Files.move(tmp, chunks, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String digestOf(Path file, String digest) throws IOException {
+        MessageDigest md = OrasBlobCache.newMessageDigest(digest);
+        try (InputStream is = Files.newInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                md.update(buffer, 0, read);
+            }
+        }
+        return OrasBlobCache.format(digest, md.digest());
+    }
+}
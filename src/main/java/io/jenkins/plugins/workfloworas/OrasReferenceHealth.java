@@ -0,0 +1,354 @@
+package io.jenkins.plugins.workfloworas;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Util;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.NamingThreadFactory;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+import land.oras.ContainerRef;
+import land.oras.Descriptor;
+import land.oras.Manifest;
+import land.oras.Registry;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Check the references of all jobs using {@link CpsOrasFlowDefinition} with HEAD requests.
+ * Jobs are grouped by reference, credentials and insecure flag so each distinct reference is checked once, with a
+ * bounded number of concurrent checks. The last report is kept so it can be displayed without waiting.
+ */
+public final class OrasReferenceHealth {
+
+    private static final Logger LOG = Logger.getLogger(OrasReferenceHealth.class.getName());
+
+    /**
+     * Maximum number of references checked concurrently
+     */
+    static int PARALLELISM = SystemProperties.getInteger(OrasReferenceHealth.class.getName() + ".parallelism", 8);
+
+    /**
+     * Number of milliseconds after which a report is refreshed in the background when viewed
+     */
+    static long MAX_AGE =
+            SystemProperties.getLong(OrasReferenceHealth.class.getName() + ".maxAge", TimeUnit.MINUTES.toMillis(10));
+
+    private static final OrasReferenceHealth INSTANCE = new OrasReferenceHealth();
+
+    /**
+     * Outcome of a reference check
+     */
+    enum Status {
+        /**
+         * Reachable and pointing to a valid artifact, or an artifact not downloaded yet
+         */
+        OK,
+        /**
+         * Reachable but pointing to an artifact of the wrong type
+         */
+        INVALID,
+        /**
+         * Not reachable, or not found
+         */
+        ERROR
+    }
+
+    /**
+     * Check result of a reference
+     */
+    @ExportedBean(defaultVisibility = 2)
+    public static final class ReferenceStatus {
+
+        private final String reference;
+        private final boolean insecure;
+        private final String credentialsId;
+        private final List<String> jobs;
+        private final Status status;
+        private final String digest;
+        private final long latencyMillis;
+        private final Boolean artifactTypeValid;
+        private final String message;
+        private final long changedAt;
+
+        ReferenceStatus(
+                String reference,
+                boolean insecure,
+                String credentialsId,
+                List<String> jobs,
+                Status status,
+                @CheckForNull String digest,
+                long latencyMillis,
+                @CheckForNull Boolean artifactTypeValid,
+                @CheckForNull String message,
+                long changedAt) {
+            this.reference = reference;
+            this.insecure = insecure;
+            this.credentialsId = credentialsId;
+            this.jobs = List.copyOf(jobs);
+            this.status = status;
+            this.digest = digest;
+            this.latencyMillis = latencyMillis;
+            this.artifactTypeValid = artifactTypeValid;
+            this.message = message;
+            this.changedAt = changedAt;
+        }
+
+        @Exported
+        public String getReference() {
+            return reference;
+        }
+
+        @Exported
+        public boolean isInsecure() {
+            return insecure;
+        }
+
+        @Exported
+        public String getCredentialsId() {
+            return credentialsId;
+        }
+
+        @Exported
+        public List<String> getJobs() {
+            return jobs;
+        }
+
+        @Exported
+        public String getStatus() {
+            return status.name();
+        }
+
+        /**
+         * @return The digest the reference points to, or null if not reachable
+         */
+        @Exported
+        @CheckForNull
+        public String getDigest() {
+            return digest;
+        }
+
+        @Exported
+        public long getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        /**
+         * @return Whether the artifact type matches the job configuration, or null if the manifest isn't known yet
+         */
+        @Exported
+        @CheckForNull
+        public Boolean getArtifactTypeValid() {
+            return artifactTypeValid;
+        }
+
+        @Exported
+        @CheckForNull
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * @return The time the digest was seen changing, or 0 if it didn't change since Jenkins started
+         */
+        @Exported
+        public long getChangedAt() {
+            return changedAt;
+        }
+
+        public String getChangedAgo() {
+            return changedAt > 0 ? Util.getTimeSpanString(System.currentTimeMillis() - changedAt) : "";
+        }
+    }
+
+    private volatile List<ReferenceStatus> statuses = List.of();
+    private volatile long checkedAt;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private OrasReferenceHealth() {}
+
+    static OrasReferenceHealth get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return The last report, refreshed in the background if too old
+     */
+    @NonNull
+    List<ReferenceStatus> getStatuses() {
+        if (System.currentTimeMillis() - checkedAt > MAX_AGE) {
+            refreshAsync();
+        }
+        return statuses;
+    }
+
+    /**
+     * @return The time of the last report, or 0 if never checked
+     */
+    long getCheckedAt() {
+        return checkedAt;
+    }
+
+    boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Start a check of all references unless one is already running
+     */
+    void refreshAsync() {
+        if (running.compareAndSet(false, true)) {
+            Timer.get().submit(() -> {
+                try (ACLContext ctx = ACL.as2(ACL.SYSTEM2)) {
+                    refresh();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    LOG.log(Level.WARNING, "Unable to check ORAS references", e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        }
+    }
+
+    void refresh() throws InterruptedException {
+        Map<String, List<WorkflowJob>> groups = new LinkedHashMap<>();
+        for (WorkflowJob job : Jenkins.get().allItems(WorkflowJob.class)) {
+            if (job.getDefinition() instanceof CpsOrasFlowDefinition definition
+                    && definition.getContainerRef() != null
+                    && !definition.getContainerRef().isBlank()) {
+                groups.computeIfAbsent(definition.getResolutionKey(), k -> new ArrayList<>())
+                        .add(job);
+            }
+        }
+        Map<String, ReferenceStatus> previous = new LinkedHashMap<>();
+        for (ReferenceStatus status : statuses) {
+            previous.put(key(status), status);
+        }
+        List<Callable<ReferenceStatus>> checks = new ArrayList<>();
+        for (List<WorkflowJob> jobs : groups.values()) {
+            checks.add(() -> check(jobs, previous));
+        }
+        List<ReferenceStatus> result = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, PARALLELISM),
+                new NamingThreadFactory(new DaemonThreadFactory(), OrasReferenceHealth.class.getSimpleName()));
+        try {
+            List<Future<ReferenceStatus>> futures = executor.invokeAll(
+                    checks, OrasGlobalConfiguration.get().getFetchTimeout(), TimeUnit.SECONDS);
+            int i = 0;
+            for (List<WorkflowJob> jobs : groups.values()) {
+                Future<ReferenceStatus> future = futures.get(i++);
+                try {
+                    result.add(future.get());
+                } catch (CancellationException e) {
+                    result.add(failure(jobs, "Timed out"));
+                } catch (ExecutionException e) {
+                    result.add(failure(jobs, String.valueOf(e.getCause())));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // Errors first
+        result.sort(Comparator.comparing(ReferenceStatus::getStatus).thenComparing(ReferenceStatus::getReference));
+        statuses = List.copyOf(result);
+        checkedAt = System.currentTimeMillis();
+    }
+
+    private static ReferenceStatus check(List<WorkflowJob> jobs, Map<String, ReferenceStatus> previous) {
+        WorkflowJob first = jobs.get(0);
+        CpsOrasFlowDefinition definition = (CpsOrasFlowDefinition) first.getDefinition();
+        String reference = definition.getContainerRef();
+        List<String> names = jobs.stream().map(WorkflowJob::getFullName).toList();
+        ReferenceStatus last = previous.get(definition.getResolutionKey());
+        long start = System.nanoTime();
+        try {
+            Registry registry = definition.getRegistry(first);
+            Descriptor descriptor = registry.probeDescriptor(ContainerRef.parse(reference));
+            long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            String digest = descriptor.getDigest();
+            // Only HEAD requests are sent, the artifact type is known once a build or the tag watcher fetched it
+            Manifest manifest = digest != null ? OrasManifestResolver.get().getManifest(digest) : null;
+            Boolean valid = null;
+            String message = null;
+            if (manifest != null) {
+                try {
+                    CpsOrasFlowDefinition.ensureArtifactType(definition.getScriptPath(), manifest);
+                    valid = true;
+                } catch (IllegalArgumentException e) {
+                    valid = false;
+                    message = e.getMessage();
+                }
+            }
+            long changedAt = last == null ? 0 : last.getChangedAt();
+            if (last != null && last.getDigest() != null && !last.getDigest().equals(digest)) {
+                changedAt = System.currentTimeMillis();
+            }
+            return new ReferenceStatus(
+                    reference,
+                    definition.isInsecure(),
+                    definition.getCredentialsId(),
+                    names,
+                    Boolean.FALSE.equals(valid) ? Status.INVALID : Status.OK,
+                    digest,
+                    latency,
+                    valid,
+                    message,
+                    changedAt);
+        } catch (Exception e) {
+            LOG.log(Level.FINE, "Unable to check " + reference, e);
+            return new ReferenceStatus(
+                    reference,
+                    definition.isInsecure(),
+                    definition.getCredentialsId(),
+                    names,
+                    Status.ERROR,
+                    null,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                    null,
+                    e.getMessage(),
+                    last == null ? 0 : last.getChangedAt());
+        }
+    }
+
+    private static ReferenceStatus failure(List<WorkflowJob> jobs, String message) {
+        CpsOrasFlowDefinition definition = (CpsOrasFlowDefinition) jobs.get(0).getDefinition();
+        return new ReferenceStatus(
+                definition.getContainerRef(),
+                definition.isInsecure(),
+                definition.getCredentialsId(),
+                jobs.stream().map(WorkflowJob::getFullName).toList(),
+                Status.ERROR,
+                null,
+                0,
+                null,
+                message,
+                0);
+    }
+
+    private static String key(ReferenceStatus status) {
+        return CpsOrasFlowDefinition.resolutionKey(
+                status.getCredentialsId(), status.isInsecure(), status.getReference());
+    }
+}
@@ -0,0 +1,92 @@
+package io.jenkins.plugins.workfloworas;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Api;
+import hudson.model.ManagementLink;
+import hudson.security.Permission;
+import java.util.List;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+import org.kohsuke.stapler.verb.POST;
+
+/**
+ * Report the health of the references of all ORAS pipelines on {@code /manage/oras-references}, and as JSON on
+ * {@code /manage/oras-references/api/json}
+ */
+@Extension
+@ExportedBean
+@SuppressWarnings("unused")
+public class OrasReferencesLink extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return "symbol-cloud";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "ORAS References";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Status, digest and latency of the ORAS references used by pipelines";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "oras-references";
+    }
+
+    @NonNull
+    @Override
+    public Category getCategory() {
+        return Category.STATUS;
+    }
+
+    @NonNull
+    @Override
+    public Permission getRequiredPermission() {
+        return Jenkins.ADMINISTER;
+    }
+
+    public Api getApi() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        return new Api(this);
+    }
+
+    @Exported
+    public List<OrasReferenceHealth.ReferenceStatus> getReferences() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        return OrasReferenceHealth.get().getStatuses();
+    }
+
+    /**
+     * @return The time of the last check in milliseconds, or 0 if never checked
+     */
+    @Exported
+    public long getCheckedAt() {
+        return OrasReferenceHealth.get().getCheckedAt();
+    }
+
+    public String getCheckedAgo() {
+        return Util.getTimeSpanString(System.currentTimeMillis() - getCheckedAt());
+    }
+
+    @Exported
+    public boolean isRunning() {
+        return OrasReferenceHealth.get().isRunning();
+    }
+
+    @POST
+    public HttpResponse doRefresh() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        OrasReferenceHealth.get().refreshAsync();
+        return HttpResponses.redirectToDot();
+    }
+}
@@ -0,0 +1,126 @@
+package io.jenkins.plugins.workfloworas;
+
+import com.cloudbees.plugins.credentials.common.UsernamePasswordCredentials;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Util;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import land.oras.Registry;
+
+/**
+ * Shared registry clients, so HTTP connections and bearer tokens are reused across builds.
+ * Clients are keyed by registry host, credentials ID, insecure flag and a fingerprint of the credentials,
+ * so updating credentials never reuses a client authenticated with the previous secret.
+ */
+final class OrasRegistryPool {
+
+    private static final Logger LOG = Logger.getLogger(OrasRegistryPool.class.getName());
+
+    /**
+     * Number of seconds an unused client is kept
+     */
+    static long IDLE_TIMEOUT = SystemProperties.getLong(OrasRegistryPool.class.getName() + ".idleTimeout", 600L);
+
+    /**
+     * Maximum number of seconds a client is kept, bounding the lifetime of its cached tokens
+     */
+    static long MAX_AGE = SystemProperties.getLong(OrasRegistryPool.class.getName() + ".maxAge", 3600L);
+
+    private static final OrasRegistryPool INSTANCE = new OrasRegistryPool(Clock.systemUTC());
+
+    record Key(String host, String credentialsId, boolean insecure, String fingerprint) {}
+
+    private static final class Entry {
+        private final Registry registry;
+        private final Instant createdAt;
+        private volatile Instant lastUsedAt;
+
+        private Entry(Registry registry, Instant createdAt) {
+            this.registry = registry;
+            this.createdAt = createdAt;
+            this.lastUsedAt = createdAt;
+        }
+
+        private boolean isExpired(Instant now) {
+            return now.isAfter(lastUsedAt.plus(Duration.ofSeconds(IDLE_TIMEOUT)))
+                    || now.isAfter(createdAt.plus(Duration.ofSeconds(MAX_AGE)));
+        }
+    }
+
+    private final Map<Key, Entry> clients = new ConcurrentHashMap<>();
+    private final Clock clock;
+
+    /**
+     * @param clock The clock expiring clients
+     */
+    OrasRegistryPool(@NonNull Clock clock) {
+        this.clock = clock;
+    }
+
+    static OrasRegistryPool get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get a client for the given key, building it if needed
+     * @param key The client key
+     * @param factory Build a new client
+     * @return The registry client
+     */
+    @NonNull
+    Registry get(@NonNull Key key, @NonNull Supplier<Registry> factory) {
+        Instant now = clock.instant();
+        clients.values().removeIf(e -> e.isExpired(now));
+        Entry entry = clients.computeIfAbsent(key, k -> {
+            LOG.fine(() -> "Creating registry client for " + k.host());
+            return new Entry(factory.get(), now);
+        });
+        entry.lastUsedAt = now;
+        return entry.registry;
+    }
+
+    /**
+     * Build the key of a client
+     * @param host The registry host
+     * @param credentialsId The credentials ID if any
+     * @param insecure Insecure flag
+     * @param credentials The resolved credentials if any
+     * @return The key
+     */
+    static Key key(
+            String host,
+            @CheckForNull String credentialsId,
+            boolean insecure,
+            @CheckForNull UsernamePasswordCredentials credentials) {
+        return new Key(host, Util.fixNull(credentialsId), insecure, fingerprint(credentials));
+    }
+
+    /**
+     * @return A fingerprint of the credentials, or an empty string for anonymous access
+     */
+    static String fingerprint(@CheckForNull UsernamePasswordCredentials credentials) {
+        if (credentials == null) {
+            return "";
+        }
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(credentials.getUsername().getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+            md.update(credentials.getPassword().getPlainText().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package io.jenkins.plugins.workfloworas;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+
+/**
+ * Read pipeline scripts with bounded memory, verifying their size and digest while streaming
+ */
+final class OrasScriptReader {
+
+    private OrasScriptReader() {}
+
+    /**
+     * Read a script from a stream
+     * @param is The stream
+     * @param digest The expected digest, or null to skip the verification
+     * @param declaredSize The declared size, or a negative value if unknown
+     * @param maxSize The maximum number of bytes to read
+     * @return The script
+     * @throws IOException if the script is too large or doesn't match the digest
+     */
+    static String read(InputStream is, @CheckForNull String digest, long declaredSize, long maxSize)
+            throws IOException {
+        checkSize(declaredSize, maxSize);
+        MessageDigest md = digest != null ? OrasBlobCache.newMessageDigest(digest) : null;
+        BoundedInputStream bounded = new BoundedInputStream(md != null ? new DigestInputStream(is, md) : is, maxSize);
+        StringBuilder sb = new StringBuilder(declaredSize > 0 ? (int) Math.min(declaredSize, 64 * 1024) : 8192);
+        try (Reader reader = new InputStreamReader(bounded, StandardCharsets.UTF_8)) {
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                sb.append(buffer, 0, read);
+            }
+        }
+        if (declaredSize >= 0 && bounded.count != declaredSize) {
+            throw new IOException("Size mismatch, expected %d bytes but got %d".formatted(declaredSize, bounded.count));
+        }
+        if (md != null) {
+            OrasBlobCache.verify(digest, OrasBlobCache.format(digest, md.digest()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Fail if the declared size is above the limit
+     */
+    static void checkSize(long declaredSize, long maxSize) throws IOException {
+        if (declaredSize > maxSize) {
+            throw new IOException(
+                    "Script of %d bytes exceeds the maximum size of %d bytes".formatted(declaredSize, maxSize));
+        }
+    }
+
+    private static final class BoundedInputStream extends FilterInputStream {
+
+        private final long max;
+        private long count;
+
+        private BoundedInputStream(InputStream in, long max) {
+            super(in);
+            this.max = max;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                add(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            // One byte past the limit is enough to detect an oversized script, without overflowing near Long.MAX_VALUE
+            long remaining = max - count;
+            int read = super.read(b, off, remaining < len ? (int) remaining + 1 : len);
+            if (read > 0) {
+                add(read);
+            }
+            return read;
+        }
+
+        private void add(long read) throws IOException {
+            count += read;
+            if (count > max) {
+                throw new IOException("Script exceeds the maximum size of %d bytes".formatted(max));
+            }
+        }
+    }
+}
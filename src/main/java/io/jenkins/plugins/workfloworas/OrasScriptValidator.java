@@ -0,0 +1,106 @@
+package io.jenkins.plugins.workfloworas;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import jenkins.util.SystemProperties;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+
+/**
+ * Parse pipeline scripts once per digest and remember whether they are valid, so builds of a known bad script fail
+ * without fetching it again and builds of a known good script are not parsed twice.
+ * Scripts are only parsed, which catches syntax errors without resolving classes nor running any AST transformation
+ * such as {@code @Grab}, since the script is not trusted yet.
+ */
+final class OrasScriptValidator {
+
+    /**
+     * Maximum number of verdicts kept in memory
+     */
+    static int MAX_VERDICTS =
+            SystemProperties.getInteger(OrasScriptValidator.class.getName() + ".maxVerdicts", 1000);
+
+    private static final OrasScriptValidator INSTANCE = new OrasScriptValidator();
+
+    /**
+     * Outcome of a script validation
+     * @param valid Whether the script parses
+     * @param error The parser error if invalid
+     */
+    record Verdict(boolean valid, @CheckForNull String error) {}
+
+    private final LinkedHashMap<String, Verdict> verdicts = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Verdict> eldest) {
+            return size() > MAX_VERDICTS;
+        }
+    };
+
+    private OrasScriptValidator() {}
+
+    static OrasScriptValidator get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param digest The layer digest
+     * @param scriptPath The script path if the layer is a repository archive
+     * @return The key of the script verdict
+     */
+    static String key(@NonNull String digest, @CheckForNull String scriptPath) {
+        if (scriptPath == null || scriptPath.isBlank()) {
+            return digest;
+        }
+        return digest + "|" + OrasArchives.normalize(scriptPath);
+    }
+
+    /**
+     * @return The verdict of a script if already validated
+     */
+    @CheckForNull
+    Verdict getVerdict(@NonNull String key) {
+        synchronized (verdicts) {
+            return verdicts.get(key);
+        }
+    }
+
+    /**
+     * Validate a script unless already validated
+     * @param key The script key
+     * @param script The script content
+     * @return The verdict
+     */
+    @NonNull
+    Verdict validate(@NonNull String key, @NonNull String script) {
+        Verdict verdict = getVerdict(key);
+        if (verdict != null) {
+            return verdict;
+        }
+        verdict = parse(script);
+        synchronized (verdicts) {
+            verdicts.put(key, verdict);
+        }
+        return verdict;
+    }
+
+    void clear() {
+        synchronized (verdicts) {
+            verdicts.clear();
+        }
+    }
+
+    static Verdict parse(String script) {
+        CompilationUnit unit = new CompilationUnit(new CompilerConfiguration());
+        unit.addSource("Jenkinsfile", script);
+        try {
+            unit.compile(Phases.PARSING);
+            return new Verdict(true, null);
+        } catch (CompilationFailedException e) {
+            return new Verdict(false, e.getMessage());
+        }
+    }
+}
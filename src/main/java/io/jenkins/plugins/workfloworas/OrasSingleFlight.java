@@ -0,0 +1,115 @@
+package io.jenkins.plugins.workfloworas;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.util.DaemonThreadFactory;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import jenkins.util.NamingThreadFactory;
+
+/**
+ * Coalesce concurrent calls for the same key into a single execution.
+ * The shared execution runs on its own thread, so interrupting one of the callers (for example when its build is aborted)
+ * doesn't cancel it for the others. Failures are reported to every caller.
+ * An execution exceeding its timeout fails for every caller and is interrupted, so a retry starts a new one instead of
+ * waiting again for the hung one.
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+final class OrasSingleFlight<K, V> {
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+            new NamingThreadFactory(new DaemonThreadFactory(), OrasSingleFlight.class.getSimpleName()));
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Run the task or wait for the execution already in flight for the same key
+     * @param key The key
+     * @param task The task
+     * @return The shared result
+     */
+    V run(@NonNull K key, @NonNull Callable<V> task) throws IOException, InterruptedException {
+        return run(key, null, task);
+    }
+
+    /**
+     * Run the task or wait for the execution already in flight for the same key
+     * @param key The key
+     * @param timeout The maximum duration of the execution, if bounded
+     * @param task The task
+     * @return The shared result
+     * @throws OrasFetchPolicy.RequestTimeoutException if the execution timed out
+     */
+    V run(@NonNull K key, @CheckForNull Duration timeout, @NonNull Callable<V> task)
+            throws IOException, InterruptedException {
+        try {
+            return start(key, timeout, task).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            if (cause instanceof Error err) {
+                throw err;
+            }
+            if (cause instanceof IOException ioe) {
+                // Rethrown as is so subclasses such as AbortException keep their meaning
+                throw ioe;
+            }
+            if (cause instanceof TimeoutException) {
+                throw new OrasFetchPolicy.RequestTimeoutException("Shared execution of " + key + " timed out");
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Start the task unless an execution is already in flight for the same key, without waiting for it
+     * @param key The key
+     * @param timeout The maximum duration of the execution, if bounded
+     * @param task The task
+     * @return The shared result
+     */
+    CompletableFuture<V> start(@NonNull K key, @CheckForNull Duration timeout, @NonNull Callable<V> task) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+        Future<?> execution = EXECUTOR.submit(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        future.whenComplete((value, failure) -> {
+            inFlight.remove(key, future);
+            if (failure instanceof TimeoutException) {
+                execution.cancel(true);
+            }
+        });
+        if (timeout != null) {
+            future.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        return future;
+    }
+
+    /**
+     * @return The number of executions in flight
+     */
+    int size() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,128 @@
+package io.jenkins.plugins.workfloworas;
+
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.CauseAction;
+import hudson.model.TaskListener;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.model.ParameterizedJobMixIn;
+import jenkins.util.SystemProperties;
+import land.oras.ContainerRef;
+import land.oras.Layer;
+import land.oras.Manifest;
+import land.oras.Registry;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+
+/**
+ * Periodically check the tags used by all jobs, so a new artifact is downloaded before the next build needs it.
+ * Jobs using the same reference are grouped so each distinct reference costs a single HEAD request per cycle.
+ * Jobs with an {@link OrasTrigger} are scheduled when the digest of their reference changes.
+ */
+@Extension
+@SuppressWarnings("unused")
+public class OrasTagWatcher extends AsyncPeriodicWork {
+
+    private static final Logger LOG = Logger.getLogger(OrasTagWatcher.class.getName());
+
+    /**
+     * Number of milliseconds between two checks
+     */
+    static long RECURRENCE_PERIOD = SystemProperties.getLong(
+            OrasTagWatcher.class.getName() + ".recurrencePeriod", TimeUnit.MINUTES.toMillis(5));
+
+    /**
+     * Last digest seen by resolution key
+     */
+    private final Map<String, String> digests = new ConcurrentHashMap<>();
+
+    public OrasTagWatcher() {
+        super("ORAS tag watcher");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return RECURRENCE_PERIOD;
+    }
+
+    @Override
+    protected void execute(TaskListener listener) {
+        Map<String, List<WorkflowJob>> groups = new LinkedHashMap<>();
+        for (WorkflowJob job : Jenkins.get().allItems(WorkflowJob.class)) {
+            if (job.isDisabled() || !(job.getDefinition() instanceof CpsOrasFlowDefinition definition)) {
+                continue;
+            }
+            String containerRef = definition.getContainerRef();
+            if (containerRef == null || containerRef.isBlank() || OrasManifestResolver.isPinned(containerRef)) {
+                continue;
+            }
+            groups.computeIfAbsent(definition.getResolutionKey(job), k -> new ArrayList<>())
+                    .add(job);
+        }
+        digests.keySet().retainAll(groups.keySet());
+        for (Map.Entry<String, List<WorkflowJob>> group : groups.entrySet()) {
+            try {
+                check(group.getKey(), group.getValue(), listener);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LOG.log(Level.FINE, "Unable to check " + group.getKey(), e);
+                listener.getLogger().printf("Unable to check %s: %s%n", group.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private void check(String key, List<WorkflowJob> jobs, TaskListener listener) throws Exception {
+        WorkflowJob first = jobs.get(0);
+        CpsOrasFlowDefinition definition = (CpsOrasFlowDefinition) first.getDefinition();
+        String containerRef = definition.getContainerRef();
+        Registry registry = definition.getRegistry(first);
+        String current = OrasManifestResolver.probe(registry, ContainerRef.parse(containerRef));
+        if (current == null) {
+            return;
+        }
+        OrasManifestResolver resolver = OrasManifestResolver.get();
+        boolean confirmed = resolver.confirm(key, current);
+        String previous = digests.get(key);
+        if (current.equals(previous)) {
+            return;
+        }
+        // Already resolved by a build, only the jobs remain to be triggered
+        Manifest manifest = confirmed ? resolver.getManifest(current) : null;
+        if (manifest == null) {
+            manifest = resolver.refresh(
+                    registry, containerRef, key, OrasGlobalConfiguration.get().getRequestTimeoutDuration());
+            listener.getLogger().printf("Reference %s now points to %s%n", containerRef, manifest.getDigest());
+            try {
+                CpsOrasFlowDefinition.prefetch(registry, containerRef, manifest, definition.getScriptPath());
+            } catch (IOException | RuntimeException e) {
+                // Builds fetch it themselves
+                LOG.log(Level.FINE, "Unable to prefetch " + containerRef, e);
+                listener.getLogger().printf("Unable to prefetch %s: %s%n", containerRef, e.getMessage());
+            }
+        }
+        if (previous != null) {
+            Layer layer = CpsOrasFlowDefinition.selectLayer(manifest, containerRef);
+            for (WorkflowJob job : jobs) {
+                if (OrasTrigger.get(job) != null) {
+                    ParameterizedJobMixIn.scheduleBuild2(
+                            job,
+                            -1,
+                            new CauseAction(new OrasTrigger.OrasCause(containerRef, manifest.getDigest())),
+                            new OrasBuildAction(containerRef, manifest.getDigest(), layer.getDigest()));
+                }
+            }
+        }
+        // Only recorded once handled, so a failure is retried on the next check
+        digests.put(key, current);
+    }
+}
@@ -0,0 +1,87 @@
+package io.jenkins.plugins.workfloworas;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Cause;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.triggers.Trigger;
+import hudson.triggers.TriggerDescriptor;
+import jenkins.model.ParameterizedJobMixIn;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.export.Exported;
+
+/**
+ * Build the job when the digest of its ORAS reference changes. Checks are done by {@link OrasTagWatcher}.
+ */
+public class OrasTrigger extends Trigger<Job<?, ?>> {
+
+    @DataBoundConstructor
+    public OrasTrigger() {}
+
+    /**
+     * Get the trigger of a job
+     * @param job The job
+     * @return The trigger or null if not configured
+     */
+    @CheckForNull
+    static OrasTrigger get(Job<?, ?> job) {
+        if (job instanceof ParameterizedJobMixIn.ParameterizedJob<?, ?> pj) {
+            for (Trigger<?> trigger : pj.getTriggers().values()) {
+                if (trigger instanceof OrasTrigger orasTrigger) {
+                    return orasTrigger;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Cause of builds started by a digest change
+     */
+    public static class OrasCause extends Cause {
+
+        private final String containerRef;
+        private final String digest;
+
+        public OrasCause(String containerRef, String digest) {
+            this.containerRef = containerRef;
+            this.digest = digest;
+        }
+
+        @Exported
+        public String getContainerRef() {
+            return containerRef;
+        }
+
+        @Exported
+        public String getDigest() {
+            return digest;
+        }
+
+        @Override
+        public String getShortDescription() {
+            return "Started by change of %s to %s".formatted(containerRef, digest);
+        }
+    }
+
+    @Extension
+    @Symbol("oras")
+    @SuppressWarnings("unused")
+    public static class DescriptorImpl extends TriggerDescriptor {
+
+        @Override
+        public boolean isApplicable(Item item) {
+            return item instanceof WorkflowJob;
+        }
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "Build when the ORAS artifact changes";
+        }
+    }
+}
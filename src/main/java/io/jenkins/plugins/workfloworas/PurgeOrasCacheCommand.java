@@ -0,0 +1,28 @@
+package io.jenkins.plugins.workfloworas;
+
+import hudson.Extension;
+import hudson.cli.CLICommand;
+import jenkins.model.Jenkins;
+
+/**
+ * Purge the controller-side cache of manifests, pipeline scripts and repository archives
+ */
+@Extension
+@SuppressWarnings("unused")
+public class PurgeOrasCacheCommand extends CLICommand {
+
+    @Override
+    public String getShortDescription() {
+        return "Purge the cache of pipeline scripts and repository archives pulled from ORAS registries";
+    }
+
+    @Override
+    protected int run() throws Exception {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        OrasBlobCache.get().purge();
+        OrasManifestResolver.get().clear();
+        OrasScriptValidator.get().clear();
+        stdout.println("ORAS cache purged");
+        return 0;
+    }
+}
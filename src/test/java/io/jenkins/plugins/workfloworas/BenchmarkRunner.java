@@ -0,0 +1,41 @@
+package io.jenkins.plugins.workfloworas;
+
+import java.util.concurrent.TimeUnit;
+import jenkins.benchmark.jmh.BenchmarkFinder;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the JMH benchmarks with {@code mvn test -Dbenchmark}.
+ * Sample time mode reports p50 and p99 latencies, throughput mode the operations per second and the GC profiler the
+ * allocation rate. Results are written to {@code jmh-report.json}.
+ */
+class BenchmarkRunner {
+
+    @Test
+    void runJmhBenchmarks() throws Exception {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .mode(Mode.SampleTime)
+                .mode(Mode.Throughput)
+                .warmupIterations(Integer.getInteger("benchmark.warmupIterations", 2))
+                .measurementIterations(Integer.getInteger("benchmark.measurementIterations", 5))
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .forks(1)
+                .jvmArgsAppend(
+                        "-Dbenchmark.latencyMs=" + RegistryStub.LATENCY_MS,
+                        "-Dbenchmark.bandwidth=" + RegistryStub.BANDWIDTH)
+                .addProfiler(GCProfiler.class)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-report.json");
+        BenchmarkFinder finder = new BenchmarkFinder(getClass());
+        finder.findBenchmarks(options);
+        new Runner(options.build()).run();
+    }
+}
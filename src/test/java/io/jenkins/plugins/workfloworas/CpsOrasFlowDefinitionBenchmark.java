@@ -0,0 +1,106 @@
+package io.jenkins.plugins.workfloworas;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Measure builds of pipelines fetched from a registry stand-in, from scheduling to completion
+ */
+@JmhBenchmark
+public class CpsOrasFlowDefinitionBenchmark {
+
+    public static class RegistryState extends JmhBenchmarkState {
+
+        /**
+         * Number of builds started concurrently
+         */
+        @Param({"1", "16"})
+        public int concurrency;
+
+        /**
+         * Whether the caches are purged before each invocation
+         */
+        @Param({"true", "false"})
+        public boolean cold;
+
+        /**
+         * Number of files in the repository archive
+         */
+        @Param({"100", "10000"})
+        public int fileCount;
+
+        private RegistryStub registry;
+        private final List<WorkflowJob> scriptJobs = new ArrayList<>();
+        private final List<WorkflowJob> repoJobs = new ArrayList<>();
+
+        @Override
+        public void setup() throws Exception {
+            registry = new RegistryStub();
+            Path tmp = Files.createTempDirectory("oras-benchmark");
+            Path script = Files.writeString(tmp.resolve("Jenkinsfile"), TestArchives.SCRIPT, StandardCharsets.UTF_8);
+            Path archive = TestArchives.createTarGz(tmp.resolve("repo.tar.gz"), fileCount, 1024);
+            String scriptRef = registry.push("pipeline", CpsOrasFlowDefinition.ARTIFACT_TYPE_SCRIPT, script);
+            String repoRef = registry.push("repo", CpsOrasFlowDefinition.ARTIFACT_TYPE_REPO, archive);
+            for (int i = 0; i < concurrency; i++) {
+                scriptJobs.add(createJob("script-" + i, scriptRef, null));
+                repoJobs.add(createJob("repo-" + i, repoRef, TestArchives.SCRIPT_PATH));
+            }
+        }
+
+        private WorkflowJob createJob(String name, String containerRef, String scriptPath) throws Exception {
+            WorkflowJob job = getJenkins().createProject(WorkflowJob.class, name);
+            CpsOrasFlowDefinition definition = new CpsOrasFlowDefinition(containerRef);
+            definition.setInsecure(true);
+            definition.setScriptPath(scriptPath);
+            job.setDefinition(definition);
+            return job;
+        }
+
+        @Setup(Level.Invocation)
+        public void purge() throws Exception {
+            if (cold) {
+                OrasBlobCache.get().purge();
+                OrasManifestResolver.get().clear();
+            }
+        }
+
+        @Override
+        public void tearDown() {
+            registry.close();
+        }
+    }
+
+    @Benchmark
+    public void singleScript(RegistryState state) throws Exception {
+        build(state.scriptJobs);
+    }
+
+    @Benchmark
+    public void repoScriptPath(RegistryState state) throws Exception {
+        build(state.repoJobs);
+    }
+
+    private static void build(List<WorkflowJob> jobs) throws Exception {
+        List<Future<WorkflowRun>> builds = new ArrayList<>();
+        for (WorkflowJob job : jobs) {
+            builds.add(job.scheduleBuild2(0));
+        }
+        for (Future<WorkflowRun> build : builds) {
+            if (build.get().getResult() != hudson.model.Result.SUCCESS) {
+                throw new IllegalStateException("Build failed: " + build.get().getLog());
+            }
+        }
+    }
+}
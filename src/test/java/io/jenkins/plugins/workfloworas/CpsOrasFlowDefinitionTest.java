@@ -7,19 +7,27 @@ import static org.junit.jupiter.api.Assertions.*;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import hudson.ExtensionList;
+import hudson.model.TaskListener;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import land.oras.ArtifactType;
+import land.oras.Config;
 import land.oras.ContainerRef;
 import land.oras.Layer;
 import land.oras.LocalPath;
 import land.oras.Manifest;
 import land.oras.Registry;
 import land.oras.utils.Const;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.jenkinsci.plugins.workflow.libs.GlobalLibraries;
+import org.jenkinsci.plugins.workflow.libs.LibraryConfiguration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.jvnet.hudson.test.JenkinsRule;
 import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
 import org.testcontainers.junit.jupiter.Container;
@@ -42,6 +50,50 @@ class CpsOrasFlowDefinitionTest {
                 containerRef, CpsOrasFlowDefinition.ARTIFACT_TYPE_REPO, LocalPath.of(Path.of("src/test/resources")));
     }
 
+    /**
+     * Push a repository archive as a single layer of the given media type
+     * @return The container reference
+     */
+    private String pushArchive(String name, String mediaType, Path archive) {
+        return pushArchive(name, CpsOrasFlowDefinition.ARTIFACT_TYPE_REPO, mediaType, archive);
+    }
+
+    private String pushArchive(String name, ArtifactType artifactType, String mediaType, Path archive) {
+        Registry registry =
+                Registry.builder().insecure(this.container.getRegistry()).build();
+        String reference = "%s/%s:latest".formatted(this.container.getRegistry(), name);
+        ContainerRef containerRef = ContainerRef.parse(reference);
+        registry.pushConfig(containerRef, Config.empty());
+        Layer layer = registry.pushBlob(containerRef, archive).withMediaType(mediaType);
+        registry.pushManifest(
+                containerRef,
+                Manifest.empty()
+                        .withArtifactType(artifactType)
+                        .withLayers(List.of(layer)));
+        return reference;
+    }
+
+    @Test
+    public void shouldOnlyCheckMediaTypeOfSelectedLayer() {
+        Layer layer = Layer.fromFile(Path.of("src/test/resources/Jenkinsfile"));
+        Manifest manifest = Manifest.empty()
+                .withArtifactType(CpsOrasFlowDefinition.ARTIFACT_TYPE_REPO)
+                .withLayers(List.of(
+                        layer.withMediaType("application/vnd.example.readme"),
+                        layer.withMediaType(CpsOrasFlowDefinition.REPO_ZSTD_MEDIA_TYPE)));
+        CpsOrasFlowDefinition.ensureArtifactType(TestArchives.SCRIPT_PATH, manifest);
+
+        for (String mediaType : List.of("application/octet-stream", "application/vnd.oci.image.layer.v1.tar+bzip2")) {
+            Manifest unsupported = Manifest.empty()
+                    .withArtifactType(CpsOrasFlowDefinition.ARTIFACT_TYPE_REPO)
+                    .withLayers(List.of(layer.withMediaType(mediaType)));
+            IllegalArgumentException e = assertThrows(
+                    IllegalArgumentException.class,
+                    () -> CpsOrasFlowDefinition.ensureArtifactType(TestArchives.SCRIPT_PATH, unsupported));
+            assertTrue(e.getMessage().startsWith("Unsupported repository layer media type " + mediaType));
+        }
+    }
+
     @Test
     public void shouldRunPipelineWithSingleArtifact(JenkinsRule jenkinsRule, WireMockRuntimeInfo wmRuntimeInfo)
             throws Exception {
@@ -94,6 +146,201 @@ class CpsOrasFlowDefinitionTest {
         jenkinsRule.assertLogContains("Building...", b);
     }
 
+    @Test
+    public void shouldRecordResolvedDigests(JenkinsRule jenkinsRule) throws Exception {
+        WorkflowJob p = jenkinsRule.jenkins.createProject(WorkflowJob.class, "recorded");
+        CpsOrasFlowDefinition def = new CpsOrasFlowDefinition("%s/repo:latest".formatted(container.getRegistry()));
+        def.setInsecure(true);
+        def.setScriptPath("src/test/resources/Jenkinsfile");
+        p.setDefinition(def);
+        WorkflowRun b = jenkinsRule.buildAndAssertSuccess(p);
+
+        OrasBuildAction action = b.getAction(OrasBuildAction.class);
+        assertNotNull(action);
+        assertEquals(def.getContainerRef(), action.getContainerRef());
+        assertNotNull(action.getManifestDigest());
+        assertNotNull(action.getLayerDigest());
+    }
+
+    @Test
+    public void shouldRebuildWithRecordedDigests(JenkinsRule jenkinsRule) throws Exception {
+        WorkflowJob p = jenkinsRule.jenkins.createProject(WorkflowJob.class, "rebuilt");
+        CpsOrasFlowDefinition def = new CpsOrasFlowDefinition("%s/repo:latest".formatted(container.getRegistry()));
+        def.setInsecure(true);
+        def.setScriptPath("src/test/resources/Jenkinsfile");
+        p.setDefinition(def);
+        OrasBuildAction action = jenkinsRule.buildAndAssertSuccess(p).getAction(OrasBuildAction.class);
+        assertNotNull(action);
+
+        WorkflowRun b = jenkinsRule.assertBuildStatusSuccess(p.scheduleBuild2(
+                0, new OrasBuildAction(action.getContainerRef(), action.getManifestDigest(), action.getLayerDigest())));
+        jenkinsRule.assertLogContains("Using recorded digest " + action.getManifestDigest(), b);
+        jenkinsRule.assertLogContains("Building...", b);
+    }
+
+    @Test
+    public void shouldRunPipelineWithPackagedRepoLightweight(JenkinsRule jenkinsRule) throws Exception {
+        WorkflowJob p = jenkinsRule.jenkins.createProject(WorkflowJob.class, "p2");
+        CpsOrasFlowDefinition def = new CpsOrasFlowDefinition("%s/repo:latest".formatted(container.getRegistry()));
+        def.setInsecure(true);
+        def.setLightweight(true);
+        def.setScriptPath("src/test/resources/Jenkinsfile");
+        p.setDefinition(def);
+        WorkflowRun b = jenkinsRule.buildAndAssertSuccess(p);
+        jenkinsRule.assertLogContains("Reading pipeline script src/test/resources/Jenkinsfile", b);
+        jenkinsRule.assertLogContains("Building...", b);
+    }
+
+    @Test
+    public void shouldRunPipelineWithZstdRepo(JenkinsRule jenkinsRule, @TempDir Path dir) throws Exception {
+        String ref = pushArchive(
+                "repo-zstd",
+                CpsOrasFlowDefinition.REPO_ZSTD_MEDIA_TYPE,
+                TestArchives.createTarZst(dir.resolve("repo.tar.zst"), 10, 100));
+        WorkflowJob p = jenkinsRule.jenkins.createProject(WorkflowJob.class, "p3");
+        CpsOrasFlowDefinition def = new CpsOrasFlowDefinition(ref);
+        def.setInsecure(true);
+        def.setScriptPath(TestArchives.SCRIPT_PATH);
+        p.setDefinition(def);
+        WorkflowRun b = jenkinsRule.buildAndAssertSuccess(p);
+        jenkinsRule.assertLogContains("Building...", b);
+    }
+
+    @Test
+    public void shouldRunPipelineWithTarRepoLightweight(JenkinsRule jenkinsRule, @TempDir Path dir) throws Exception {
+        String ref = pushArchive(
+                "repo-tar",
+                CpsOrasFlowDefinition.REPO_TAR_MEDIA_TYPE,
+                TestArchives.createTar(dir.resolve("repo.tar"), 10, 100));
+        WorkflowJob p = jenkinsRule.jenkins.createProject(WorkflowJob.class, "p4");
+        CpsOrasFlowDefinition def = new CpsOrasFlowDefinition(ref);
+        def.setInsecure(true);
+        def.setLightweight(true);
+        def.setScriptPath(TestArchives.SCRIPT_PATH);
+        p.setDefinition(def);
+        WorkflowRun b = jenkinsRule.buildAndAssertSuccess(p);
+        jenkinsRule.assertLogContains("Building...", b);
+    }
+
+    @Test
+    public void shouldLoadLibrary(JenkinsRule jenkinsRule, @TempDir Path dir) throws Exception {
+        String ref = pushArchive(
+                "library",
+                CpsOrasFlowDefinition.ARTIFACT_TYPE_LIBRARY,
+                CpsOrasFlowDefinition.REPO_MEDIA_TYPE,
+                TestArchives.createLibraryTarGz(dir.resolve("library.tar.gz")));
+        OrasLibraryRetriever retriever = new OrasLibraryRetriever(ref.substring(0, ref.lastIndexOf(':')));
+        retriever.setInsecure(true);
+        GlobalLibraries.get().setLibraries(List.of(new LibraryConfiguration("oras-lib", retriever)));
+        WorkflowJob p = jenkinsRule.jenkins.createProject(WorkflowJob.class, "library");
+        p.setDefinition(new CpsFlowDefinition("@Library('oras-lib@latest') _\nhello()", true));
+        WorkflowRun b = jenkinsRule.buildAndAssertSuccess(p);
+        jenkinsRule.assertLogContains("Using library oras-lib from container " + ref, b);
+        jenkinsRule.assertLogContains("Hello from ORAS library", b);
+    }
+
+    @Test
+    public void shouldTriggerJobWhenTagMovedAndAlreadyBuilt(JenkinsRule jenkinsRule, @TempDir Path dir)
+            throws Exception {
+        String ref = pushArchive(
+                "moving",
+                CpsOrasFlowDefinition.REPO_TAR_MEDIA_TYPE,
+                TestArchives.createTar(dir.resolve("v1.tar"), 1, 10));
+        WorkflowJob p = jenkinsRule.jenkins.createProject(WorkflowJob.class, "moving");
+        CpsOrasFlowDefinition def = new CpsOrasFlowDefinition(ref);
+        def.setInsecure(true);
+        def.setScriptPath(TestArchives.SCRIPT_PATH);
+        p.setDefinition(def);
+        p.addTrigger(new OrasTrigger());
+        OrasTagWatcher watcher = ExtensionList.lookupSingleton(OrasTagWatcher.class);
+        watcher.execute(TaskListener.NULL);
+
+        // A build resolves the new digest before the watcher sees it
+        pushArchive(
+                "moving",
+                CpsOrasFlowDefinition.REPO_TAR_MEDIA_TYPE,
+                TestArchives.createTar(dir.resolve("v2.tar"), 2, 10));
+        jenkinsRule.buildAndAssertSuccess(p);
+        watcher.execute(TaskListener.NULL);
+        jenkinsRule.waitUntilNoActivity();
+
+        WorkflowRun triggered = p.getBuildByNumber(2);
+        assertNotNull(triggered);
+        assertNotNull(triggered.getCause(OrasTrigger.OrasCause.class));
+    }
+
+    @Test
+    public void shouldTriggerJobWhenPrefetchFails(JenkinsRule jenkinsRule, @TempDir Path dir) throws Exception {
+        OrasGlobalConfiguration.get().setFetchAttempts(1);
+        try (RegistryStub stub = new RegistryStub()) {
+            Path v1 = Files.writeString(dir.resolve("v1"), TestArchives.SCRIPT);
+            String ref = stub.push("prefetch", CpsOrasFlowDefinition.ARTIFACT_TYPE_SCRIPT, v1);
+            WorkflowJob p = jenkinsRule.jenkins.createProject(WorkflowJob.class, "prefetch");
+            CpsOrasFlowDefinition def = new CpsOrasFlowDefinition(ref);
+            def.setInsecure(true);
+            p.setDefinition(def);
+            p.addTrigger(new OrasTrigger());
+            OrasTagWatcher watcher = ExtensionList.lookupSingleton(OrasTagWatcher.class);
+            watcher.execute(TaskListener.NULL);
+
+            Path v2 = Files.writeString(dir.resolve("v2"), TestArchives.SCRIPT + "\n// v2");
+            stub.push("prefetch", CpsOrasFlowDefinition.ARTIFACT_TYPE_SCRIPT, v2);
+            stub.failBlobs("prefetch");
+            watcher.execute(TaskListener.NULL);
+            jenkinsRule.waitUntilNoActivity();
+
+            WorkflowRun triggered = p.getBuildByNumber(1);
+            assertNotNull(triggered);
+            assertNotNull(triggered.getCause(OrasTrigger.OrasCause.class));
+        }
+    }
+
+    @Test
+    public void shouldShareExtractedRepoAcrossJobs(JenkinsRule jenkinsRule) throws Exception {
+        String ref = "%s/repo:latest".formatted(container.getRegistry());
+        for (String scriptPath : List.of("src/test/resources/Jenkinsfile", "./src/test/resources/Jenkinsfile")) {
+            WorkflowJob p = jenkinsRule.jenkins.createProject(WorkflowJob.class, "shared" + scriptPath.length());
+            CpsOrasFlowDefinition def = new CpsOrasFlowDefinition(ref);
+            def.setInsecure(true);
+            def.setScriptPath(scriptPath);
+            p.setDefinition(def);
+            WorkflowRun b = jenkinsRule.buildAndAssertSuccess(p);
+            jenkinsRule.assertLogContains("Building...", b);
+        }
+        // Extracted once for both jobs
+        try (var dirs = Files.list(OrasBlobCache.getRootDir().toPath().resolve("extracted/sha256"))) {
+            assertEquals(1, dirs.count());
+        }
+    }
+
+    @Test
+    public void shouldReportReferenceHealth(JenkinsRule jenkinsRule) throws Exception {
+        String ref = "%s/repo:latest".formatted(container.getRegistry());
+        for (String name : List.of("h1", "h2")) {
+            WorkflowJob p = jenkinsRule.jenkins.createProject(WorkflowJob.class, name);
+            CpsOrasFlowDefinition def = new CpsOrasFlowDefinition(ref);
+            def.setInsecure(true);
+            def.setScriptPath("src/test/resources/Jenkinsfile");
+            p.setDefinition(def);
+        }
+        jenkinsRule.buildAndAssertSuccess(jenkinsRule.jenkins.getItemByFullName("h1", WorkflowJob.class));
+        WorkflowJob missing = jenkinsRule.jenkins.createProject(WorkflowJob.class, "h3");
+        CpsOrasFlowDefinition def = new CpsOrasFlowDefinition("%s/missing:latest".formatted(container.getRegistry()));
+        def.setInsecure(true);
+        missing.setDefinition(def);
+
+        OrasReferenceHealth.get().refresh();
+        List<OrasReferenceHealth.ReferenceStatus> statuses = OrasReferenceHealth.get().getStatuses();
+        assertEquals(2, statuses.size());
+        assertEquals("ERROR", statuses.get(0).getStatus());
+        OrasReferenceHealth.ReferenceStatus status = statuses.get(1);
+        assertEquals(ref, status.getReference());
+        assertEquals("OK", status.getStatus());
+        assertEquals(List.of("h1", "h2"), status.getJobs());
+        assertNotNull(status.getDigest());
+        assertEquals(Boolean.TRUE, status.getArtifactTypeValid());
+    }
+
     @Test
     void configRoundTripShouldPreserveDefinition(JenkinsRule jenkinsRule) throws Exception {
         String orasRef = "localhost:5000/pipeline:latest";
@@ -0,0 +1,100 @@
+package io.jenkins.plugins.workfloworas;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OrasArchiveIndexTest {
+
+    @TempDir
+    private Path dir;
+
+    private Path tar;
+    private Path index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path archive = TestArchives.createTarGz(dir.resolve("repo.tar.gz"), 250, 100);
+        tar = dir.resolve("repo.tar");
+        index = dir.resolve("repo.idx");
+        OrasArchives.decompress(archive, CpsOrasFlowDefinition.REPO_MEDIA_TYPE, tar);
+    }
+
+    @Test
+    void shouldReadEntries() throws Exception {
+        OrasArchiveIndex built = OrasArchiveIndex.build(tar, index);
+        assertEquals(251, built.size());
+        assertEquals(TestArchives.SCRIPT, built.read(TestArchives.SCRIPT_PATH, 1024));
+        assertEquals("x".repeat(100), built.read("src/dir7/file107.txt", 1024));
+        assertEquals("x".repeat(100), built.read("./src/dir7/../dir7/file107.txt", 1024));
+    }
+
+    @Test
+    void shouldLoadPersistedIndex() throws Exception {
+        OrasArchiveIndex.build(tar, index);
+        OrasArchiveIndex loaded = OrasArchiveIndex.load(tar, index);
+        assertEquals(251, loaded.size());
+        assertEquals(TestArchives.SCRIPT, loaded.read(TestArchives.SCRIPT_PATH, 1024));
+    }
+
+    @Test
+    void shouldRejectCorruptIndex() throws Exception {
+        OrasArchiveIndex.build(tar, index);
+        byte[] bytes = Files.readAllBytes(index);
+        bytes[bytes.length / 2] ^= 0x1;
+        Files.write(index, bytes);
+        assertThrows(IOException.class, () -> OrasArchiveIndex.load(tar, index));
+    }
+
+    @Test
+    void shouldRejectTruncatedIndex() throws Exception {
+        OrasArchiveIndex.build(tar, index);
+        byte[] bytes = Files.readAllBytes(index);
+        Files.write(index, Arrays.copyOf(bytes, bytes.length - 3));
+        assertThrows(IOException.class, () -> OrasArchiveIndex.load(tar, index));
+    }
+
+    @Test
+    void shouldUseLastDuplicateEntry() throws Exception {
+        Path duplicated = dir.resolve("duplicated.tar");
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(Files.newOutputStream(duplicated))) {
+            for (String content : List.of("first", "last")) {
+                TarArchiveEntry entry = new TarArchiveEntry(TestArchives.SCRIPT_PATH);
+                entry.setSize(content.length());
+                out.putArchiveEntry(entry);
+                out.write(content.getBytes(StandardCharsets.UTF_8));
+                out.closeArchiveEntry();
+            }
+        }
+        String mediaType = CpsOrasFlowDefinition.REPO_TAR_MEDIA_TYPE;
+
+        assertEquals("last", OrasArchiveIndex.build(duplicated, index).read(TestArchives.SCRIPT_PATH, 1024));
+        try (InputStream is = Files.newInputStream(duplicated)) {
+            assertEquals("last", OrasArchives.readEntry(is, mediaType, TestArchives.SCRIPT_PATH, 1024));
+        }
+        Path extracted = dir.resolve("extracted");
+        OrasArchives.extract(duplicated, mediaType, extracted);
+        assertEquals("last", Files.readString(extracted.resolve(TestArchives.SCRIPT_PATH)));
+    }
+
+    @Test
+    void shouldRejectMissingOrOversizedEntry() throws Exception {
+        OrasArchiveIndex built = OrasArchiveIndex.build(tar, index);
+        IOException missing = assertThrows(IOException.class, () -> built.read("missing", 1024));
+        assertTrue(missing.getMessage().startsWith("Script path does not exist"));
+        IOException oversized = assertThrows(IOException.class, () -> built.read(TestArchives.SCRIPT_PATH, 4));
+        assertTrue(oversized.getMessage().contains("exceeds the maximum size"));
+        assertThrows(SecurityException.class, () -> built.read("../Jenkinsfile", 1024));
+    }
+}
@@ -0,0 +1,73 @@
+package io.jenkins.plugins.workfloworas;
+
+import hudson.Util;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measure reading the script path of repository archives of different sizes, without Jenkins
+ */
+@JmhBenchmark
+public class OrasArchivesBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ArchiveState {
+
+        @Param({"100", "10000"})
+        public int fileCount;
+
+        @Param({"1024", "65536"})
+        public int fileSize;
+
+        private Path dir;
+        private Path archive;
+        private OrasArchiveIndex index;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            dir = Files.createTempDirectory("oras-archives-benchmark");
+            archive = TestArchives.createTarGz(dir.resolve("repo.tar.gz"), fileCount, fileSize);
+            Path tar = dir.resolve("repo.tar");
+            OrasArchives.decompress(archive, CpsOrasFlowDefinition.REPO_MEDIA_TYPE, tar);
+            index = OrasArchiveIndex.build(tar, dir.resolve("repo.idx"));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            Util.deleteRecursive(dir.toFile());
+        }
+    }
+
+    @Benchmark
+    public String streamEntry(ArchiveState state) throws Exception {
+        try (InputStream is = Files.newInputStream(state.archive)) {
+            return OrasArchives.readEntry(
+                    is, CpsOrasFlowDefinition.REPO_MEDIA_TYPE, TestArchives.SCRIPT_PATH, Long.MAX_VALUE);
+        }
+    }
+
+    @Benchmark
+    public String indexedEntry(ArchiveState state) throws Exception {
+        return state.index.read(TestArchives.SCRIPT_PATH, Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public String extractAndRead(ArchiveState state) throws Exception {
+        Path target = Files.createTempDirectory(state.dir, "extract");
+        try {
+            OrasArchives.extract(state.archive, CpsOrasFlowDefinition.REPO_MEDIA_TYPE, target);
+            return Files.readString(target.resolve(TestArchives.SCRIPT_PATH));
+        } finally {
+            Util.deleteRecursive(target.toFile());
+        }
+    }
+}
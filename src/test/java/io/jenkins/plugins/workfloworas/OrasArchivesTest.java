@@ -0,0 +1,81 @@
+package io.jenkins.plugins.workfloworas;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OrasArchivesTest {
+
+    private static final long MAX_EXTRACTED_BYTES = OrasArchives.MAX_EXTRACTED_BYTES;
+    private static final long MAX_ENTRIES = OrasArchives.MAX_ENTRIES;
+
+    @TempDir
+    private Path dir;
+
+    @AfterEach
+    void tearDown() {
+        OrasArchives.MAX_EXTRACTED_BYTES = MAX_EXTRACTED_BYTES;
+        OrasArchives.MAX_ENTRIES = MAX_ENTRIES;
+    }
+
+    @Test
+    void shouldRejectArchiveExceedingMaxExtractedBytes() throws Exception {
+        Path archive = TestArchives.createTarZst(dir.resolve("repo.tar.zst"), 20, 100);
+        OrasArchives.MAX_EXTRACTED_BYTES = 1000;
+
+        IOException extracted = assertThrows(
+                IOException.class,
+                () -> OrasArchives.extract(
+                        archive, CpsOrasFlowDefinition.REPO_ZSTD_MEDIA_TYPE, dir.resolve("extracted")));
+        assertTrue(extracted.getMessage().contains("maximum extracted size"), extracted.getMessage());
+        IOException decompressed = assertThrows(
+                IOException.class,
+                () -> OrasArchives.decompress(
+                        archive, CpsOrasFlowDefinition.REPO_ZSTD_MEDIA_TYPE, dir.resolve("repo.tar")));
+        assertTrue(decompressed.getMessage().contains("maximum extracted size"), decompressed.getMessage());
+    }
+
+    @Test
+    void shouldRejectArchiveWithTooManyEntries() throws Exception {
+        Path archive = TestArchives.createTarGz(dir.resolve("repo.tar.gz"), 20, 1);
+        OrasArchives.MAX_ENTRIES = 10;
+
+        IOException e = assertThrows(
+                IOException.class,
+                () -> OrasArchives.extract(archive, CpsOrasFlowDefinition.REPO_MEDIA_TYPE, dir.resolve("extracted")));
+        assertTrue(e.getMessage().contains("more than 10 entries"), e.getMessage());
+    }
+
+    @Test
+    void shouldSkipLinks() throws Exception {
+        Path archive = dir.resolve("links.tar");
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(Files.newOutputStream(archive))) {
+            TarArchiveEntry link = new TarArchiveEntry("secret", TarConstants.LF_SYMLINK);
+            link.setLinkName("/etc/passwd");
+            out.putArchiveEntry(link);
+            out.closeArchiveEntry();
+            byte[] script = TestArchives.SCRIPT.getBytes(StandardCharsets.UTF_8);
+            TarArchiveEntry file = new TarArchiveEntry(TestArchives.SCRIPT_PATH);
+            file.setSize(script.length);
+            out.putArchiveEntry(file);
+            out.write(script);
+            out.closeArchiveEntry();
+        }
+        Path extracted = dir.resolve("extracted");
+
+        OrasArchives.extract(archive, CpsOrasFlowDefinition.REPO_TAR_MEDIA_TYPE, extracted);
+
+        assertFalse(Files.exists(extracted.resolve("secret"), LinkOption.NOFOLLOW_LINKS));
+        assertEquals(TestArchives.SCRIPT, Files.readString(extracted.resolve(TestArchives.SCRIPT_PATH)));
+    }
+}
@@ -0,0 +1,270 @@
+package io.jenkins.plugins.workfloworas;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import hudson.cli.CLICommandInvoker;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class OrasBlobCacheTest {
+
+    private static final byte[] ARCHIVE = "archive".getBytes(StandardCharsets.UTF_8);
+
+    @AfterEach
+    void tearDown() throws IOException {
+        OrasBlobCache.get().purge();
+    }
+
+    @Test
+    void shouldRejectScriptWithDigestMismatch(JenkinsRule jenkinsRule) throws Exception {
+        String digest = digest("other".getBytes(StandardCharsets.UTF_8));
+        IOException e = assertThrows(
+                IOException.class,
+                () -> OrasBlobCache.get().getScript(digest, -1, () -> new ByteArrayInputStream(ARCHIVE)));
+        assertTrue(e.getMessage().contains("Digest mismatch"), e.getMessage());
+        assertEquals(0, OrasBlobCache.get().getScriptCount());
+    }
+
+    @Test
+    void shouldRejectArchiveWithDigestMismatch(JenkinsRule jenkinsRule) throws Exception {
+        String digest = digest("other".getBytes(StandardCharsets.UTF_8));
+        IOException e = assertThrows(
+                IOException.class,
+                () -> OrasBlobCache.get().getArchive(digest, () -> new ByteArrayInputStream(ARCHIVE)));
+        assertTrue(e.getMessage().contains("Digest mismatch"), e.getMessage());
+        try (Stream<Path> files = Files.list(OrasBlobCache.getRootDir().toPath().resolve("blobs/sha256"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedScript(JenkinsRule jenkinsRule) throws Exception {
+        long maxMemoryBytes = OrasBlobCache.MAX_MEMORY_BYTES;
+        try {
+            // Room for two scripts of 10 characters
+            OrasBlobCache.MAX_MEMORY_BYTES = 50;
+            AtomicInteger fetches = new AtomicInteger();
+            getScript("a", fetches);
+            getScript("b", fetches);
+            getScript("a", fetches);
+            assertEquals(2, fetches.get());
+
+            getScript("c", fetches);
+            assertEquals(3, fetches.get());
+            assertEquals(2, OrasBlobCache.get().getScriptCount());
+            // Used more recently than b
+            getScript("a", fetches);
+            assertEquals(3, fetches.get());
+            getScript("b", fetches);
+            assertEquals(4, fetches.get());
+        } finally {
+            OrasBlobCache.MAX_MEMORY_BYTES = maxMemoryBytes;
+        }
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedArchive(JenkinsRule jenkinsRule) throws Exception {
+        long maxDiskBytes = OrasBlobCache.MAX_DISK_BYTES;
+        try {
+            // Room for the first two archives only
+            OrasBlobCache.MAX_DISK_BYTES = 16;
+            byte[] second = "archive2".getBytes(StandardCharsets.UTF_8);
+            Path first = getArchive(ARCHIVE);
+            Files.setLastModifiedTime(first, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+            Path other = getArchive(second);
+            assertTrue(Files.exists(first));
+            assertTrue(Files.exists(other));
+
+            Path third = getArchive("archive3".getBytes(StandardCharsets.UTF_8));
+            assertFalse(Files.exists(first));
+            assertTrue(Files.exists(other));
+            assertTrue(Files.exists(third));
+        } finally {
+            OrasBlobCache.MAX_DISK_BYTES = maxDiskBytes;
+        }
+    }
+
+    @Test
+    void shouldPurgeWithCliCommand(JenkinsRule jenkinsRule) throws Exception {
+        getScript("a", new AtomicInteger());
+        Path archive = getArchive(ARCHIVE);
+
+        CLICommandInvoker.Result result = new CLICommandInvoker(jenkinsRule, "purge-oras-cache").invoke();
+        assertEquals(0, result.returnCode(), result.stderr());
+        assertTrue(result.stdout().contains("ORAS cache purged"));
+        assertEquals(0, OrasBlobCache.get().getScriptCount());
+        assertFalse(Files.exists(archive));
+    }
+
+    @Test
+    void shouldDeleteRangeProgressAfterFallback(JenkinsRule jenkinsRule) throws Exception {
+        String digest = digest(ARCHIVE);
+        Path blobs = OrasBlobCache.getRootDir().toPath().resolve("blobs/sha256");
+        Files.createDirectories(blobs);
+        String hex = digest.substring("sha256:".length());
+        Files.write(blobs.resolve(hex + ".part"), new byte[ARCHIVE.length]);
+        Files.write(blobs.resolve(hex + ".chunks"), new byte[] {1});
+
+        Path archive = OrasBlobCache.get()
+                .getArchive(
+                        digest,
+                        file -> {
+                            throw new IOException("Range request failed");
+                        },
+                        () -> new ByteArrayInputStream(ARCHIVE),
+                        OrasBlobCache.CacheObserver.NONE);
+
+        assertArrayEquals(ARCHIVE, Files.readAllBytes(archive));
+        assertFalse(Files.exists(blobs.resolve(hex + ".part")));
+        assertFalse(Files.exists(blobs.resolve(hex + ".chunks")));
+    }
+
+    @Test
+    void shouldNotPurgeLeasedExtractedArchive(JenkinsRule jenkinsRule, @TempDir Path tmp) throws Exception {
+        byte[] tar = Files.readAllBytes(TestArchives.createTar(tmp.resolve("repo.tar"), 2, 10));
+        String digest = digest(tar);
+        try (OrasExtractedArtifacts.Lease lease = acquire(digest, tar)) {
+            OrasBlobCache.get().purge();
+            assertTrue(Files.isRegularFile(lease.getRoot().resolve(TestArchives.SCRIPT_PATH)));
+        }
+        OrasBlobCache.get().purge();
+        assertFalse(Files.exists(OrasBlobCache.getRootDir().toPath().resolve("extracted/sha256")
+                .resolve(digest.substring("sha256:".length()))));
+    }
+
+    @Test
+    void shouldEvictIdleExtractedArchiveFirst(JenkinsRule jenkinsRule, @TempDir Path tmp) throws Exception {
+        long maxDiskBytes = OrasBlobCache.MAX_DISK_BYTES;
+        try {
+            byte[] first = Files.readAllBytes(TestArchives.createTar(tmp.resolve("first.tar"), 20, 100));
+            byte[] second = Files.readAllBytes(TestArchives.createTar(tmp.resolve("second.tar"), 30, 100));
+            Path firstRoot;
+            try (OrasExtractedArtifacts.Lease lease = acquire(digest(first), first)) {
+                firstRoot = lease.getRoot();
+            }
+            OrasBlobCache.MAX_DISK_BYTES = first.length + second.length + 2500;
+            try (OrasExtractedArtifacts.Lease lease = acquire(digest(second), second)) {
+                assertFalse(Files.exists(firstRoot));
+                assertTrue(Files.isRegularFile(lease.getRoot().resolve(TestArchives.SCRIPT_PATH)));
+            }
+        } finally {
+            OrasBlobCache.MAX_DISK_BYTES = maxDiskBytes;
+        }
+    }
+
+    @Test
+    void shouldStreamThenIndexInBackground(JenkinsRule jenkinsRule, @TempDir Path tmp) throws Exception {
+        byte[] archive = Files.readAllBytes(TestArchives.createTarGz(tmp.resolve("repo.tar.gz"), 10, 100));
+        String digest = digest(archive);
+        OrasBlobCache cache = OrasBlobCache.get();
+        assertNull(cache.readIndexed(digest, TestArchives.SCRIPT_PATH, 1024));
+
+        OrasBlobCache.BlobSource source = () -> new ByteArrayInputStream(archive);
+        assertEquals(
+                TestArchives.SCRIPT,
+                cache.readEntry(
+                        digest,
+                        CpsOrasFlowDefinition.REPO_MEDIA_TYPE,
+                        source,
+                        source,
+                        TestArchives.SCRIPT_PATH,
+                        1024,
+                        OrasBlobCache.CacheObserver.NONE));
+        cache.index(digest, CpsOrasFlowDefinition.REPO_MEDIA_TYPE, source).get();
+
+        assertEquals(TestArchives.SCRIPT, cache.readIndexed(digest, TestArchives.SCRIPT_PATH, 1024));
+        // Only the decompressed copy is stored
+        assertFalse(Files.exists(OrasBlobCache.getRootDir().toPath().resolve("blobs")));
+    }
+
+    @Test
+    void shouldTouchIndexOnRead(JenkinsRule jenkinsRule, @TempDir Path tmp) throws Exception {
+        byte[] archive = Files.readAllBytes(TestArchives.createTarGz(tmp.resolve("repo.tar.gz"), 1, 10));
+        String digest = digest(archive);
+        OrasBlobCache cache = OrasBlobCache.get();
+        cache.index(digest, CpsOrasFlowDefinition.REPO_MEDIA_TYPE, () -> new ByteArrayInputStream(archive))
+                .get();
+        Path index = OrasBlobCache.getRootDir()
+                .toPath()
+                .resolve("indexed/sha256/" + digest.substring("sha256:".length()) + ".idx");
+        FileTime old = FileTime.fromMillis(System.currentTimeMillis() - 60_000);
+        Files.setLastModifiedTime(index, old);
+
+        assertEquals(TestArchives.SCRIPT, cache.readIndexed(digest, TestArchives.SCRIPT_PATH, 1024));
+        assertTrue(Files.getLastModifiedTime(index).compareTo(old) > 0);
+    }
+
+    @Test
+    void shouldNotIndexTamperedArchive(JenkinsRule jenkinsRule, @TempDir Path tmp) throws Exception {
+        byte[] archive = Files.readAllBytes(TestArchives.createTarGz(tmp.resolve("repo.tar.gz"), 10, 100));
+        String digest = digest("other".getBytes(StandardCharsets.UTF_8));
+        OrasBlobCache cache = OrasBlobCache.get();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> cache.index(
+                        digest, CpsOrasFlowDefinition.REPO_MEDIA_TYPE, () -> new ByteArrayInputStream(archive))
+                .get());
+        assertInstanceOf(IOException.class, e.getCause());
+        assertNull(cache.readIndexed(digest, TestArchives.SCRIPT_PATH, 1024));
+    }
+
+    @Test
+    void shouldRejectStreamedEntryWithDigestMismatch(JenkinsRule jenkinsRule, @TempDir Path tmp) throws Exception {
+        byte[] archive = Files.readAllBytes(TestArchives.createTarGz(tmp.resolve("repo.tar.gz"), 10, 100));
+        String digest = digest("other".getBytes(StandardCharsets.UTF_8));
+        AtomicInteger indexes = new AtomicInteger();
+
+        IOException e = assertThrows(
+                IOException.class,
+                () -> OrasBlobCache.get()
+                        .readEntry(
+                                digest,
+                                CpsOrasFlowDefinition.REPO_MEDIA_TYPE,
+                                () -> new ByteArrayInputStream(archive),
+                                () -> {
+                                    indexes.incrementAndGet();
+                                    return new ByteArrayInputStream(archive);
+                                },
+                                TestArchives.SCRIPT_PATH,
+                                1024,
+                                OrasBlobCache.CacheObserver.NONE));
+        assertTrue(e.getMessage().contains("Digest mismatch"), e.getMessage());
+        assertEquals(0, indexes.get());
+    }
+
+    private static void getScript(String name, AtomicInteger fetches) throws Exception {
+        byte[] script = name.repeat(10).getBytes(StandardCharsets.UTF_8);
+        OrasBlobCache.get().getScript(digest(script), script.length, () -> {
+            fetches.incrementAndGet();
+            return new ByteArrayInputStream(script);
+        });
+    }
+
+    private static Path getArchive(byte[] content) throws Exception {
+        return OrasBlobCache.get().getArchive(digest(content), () -> new ByteArrayInputStream(content));
+    }
+
+    private static OrasExtractedArtifacts.Lease acquire(String digest, byte[] tar) throws Exception {
+        return OrasExtractedArtifacts.get()
+                .acquire(digest, CpsOrasFlowDefinition.REPO_TAR_MEDIA_TYPE, () -> OrasBlobCache.get()
+                        .openArchive(digest, () -> new ByteArrayInputStream(tar)));
+    }
+
+    static String digest(byte[] content) throws Exception {
+        return "sha256:" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
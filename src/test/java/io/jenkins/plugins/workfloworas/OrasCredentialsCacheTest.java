@@ -0,0 +1,73 @@
+package io.jenkins.plugins.workfloworas;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.cloudbees.hudson.plugins.folder.Folder;
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.CredentialsStore;
+import com.cloudbees.plugins.credentials.domains.Domain;
+import com.cloudbees.plugins.credentials.impl.UsernamePasswordCredentialsImpl;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class OrasCredentialsCacheTest {
+
+    @Test
+    void shouldInvalidateItemsOfSavedFolder(JenkinsRule jenkinsRule) throws Exception {
+        Folder folder = jenkinsRule.jenkins.createProject(Folder.class, "folder");
+        WorkflowJob job = folder.createProject(WorkflowJob.class, "p");
+        WorkflowJob other = jenkinsRule.jenkins.createProject(WorkflowJob.class, "other");
+        CredentialsStore store = null;
+        for (CredentialsStore s : CredentialsProvider.lookupStores(folder)) {
+            if (s.getContext() == folder) {
+                store = s;
+            }
+        }
+        assertNotNull(store);
+        UsernamePasswordCredentialsImpl credentials =
+                new UsernamePasswordCredentialsImpl(CredentialsScope.GLOBAL, "oras", null, "user", "password");
+        store.addCredentials(Domain.global(), credentials);
+
+        AtomicInteger lookups = new AtomicInteger();
+        OrasCredentialsCache.get().get(job, "oras", () -> {
+            lookups.incrementAndGet();
+            return null;
+        });
+        OrasCredentialsCache.get().get(other, "oras", () -> {
+            lookups.incrementAndGet();
+            return null;
+        });
+        assertEquals(2, lookups.get());
+
+        // Any save of the folder may carry new credentials
+        folder.setDescription("Updated");
+        OrasCredentialsCache.get().get(job, "oras", () -> {
+            lookups.incrementAndGet();
+            return null;
+        });
+        OrasCredentialsCache.get().get(other, "oras", () -> {
+            lookups.incrementAndGet();
+            return null;
+        });
+        assertEquals(3, lookups.get());
+
+        store.updateCredentials(
+                Domain.global(),
+                credentials,
+                new UsernamePasswordCredentialsImpl(CredentialsScope.GLOBAL, "oras", null, "user", "changed"));
+        OrasCredentialsCache.get().get(job, "oras", () -> {
+            lookups.incrementAndGet();
+            return null;
+        });
+        OrasCredentialsCache.get().get(other, "oras", () -> {
+            lookups.incrementAndGet();
+            return null;
+        });
+        assertEquals(4, lookups.get());
+    }
+}
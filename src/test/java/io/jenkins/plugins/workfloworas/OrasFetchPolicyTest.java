@@ -0,0 +1,112 @@
+package io.jenkins.plugins.workfloworas;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import hudson.util.StreamTaskListener;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OrasFetchPolicyTest {
+
+    private final ByteArrayOutputStream log = new ByteArrayOutputStream();
+    private long initialBackoff;
+
+    @BeforeEach
+    void setUp() {
+        initialBackoff = OrasFetchPolicy.INITIAL_BACKOFF_MILLIS;
+        OrasFetchPolicy.INITIAL_BACKOFF_MILLIS = 1;
+    }
+
+    @AfterEach
+    void tearDown() {
+        OrasFetchPolicy.INITIAL_BACKOFF_MILLIS = initialBackoff;
+    }
+
+    @Test
+    void shouldRetryTransientFailures() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        String result = policy(Duration.ofSeconds(10), 3).call("Resolving test", () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new ConnectException("Connection refused");
+            }
+            return "ok";
+        });
+        assertEquals("ok", result);
+        assertEquals(3, calls.get());
+        String output = log.toString(StandardCharsets.UTF_8);
+        assertTrue(output.contains("Resolving test failed on attempt 1/3 (Connection refused)"));
+        assertTrue(output.contains("Resolving test succeeded on attempt 3/3"));
+    }
+
+    @Test
+    void shouldNotRetryPermanentFailures() {
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(IllegalArgumentException.class, () -> policy(Duration.ofSeconds(10), 3)
+                .call("Resolving test", () -> {
+                    calls.incrementAndGet();
+                    throw new IllegalArgumentException("Wrong artifact type");
+                }));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void shouldTimeOutHungRequest() {
+        OrasFetchPolicy policy = new OrasFetchPolicy(
+                new StreamTaskListener(log, StandardCharsets.UTF_8), Duration.ofSeconds(10), Duration.ofMillis(50), 1);
+        IOException e = assertThrows(IOException.class, () -> policy.call("Resolving test", () -> {
+            Thread.sleep(10_000);
+            return "ok";
+        }));
+        assertTrue(e.getMessage().contains("timed out"));
+    }
+
+    @Test
+    void shouldRetryHungSharedRequestWithNewExecution() throws Exception {
+        OrasSingleFlight<String, String> flights = new OrasSingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        OrasFetchPolicy policy = new OrasFetchPolicy(
+                new StreamTaskListener(log, StandardCharsets.UTF_8), Duration.ofSeconds(10), Duration.ofMillis(100), 3);
+        String result = policy.callShared(
+                "Resolving test", () -> flights.run("key", policy.getRequestTimeout(), () -> {
+                    if (calls.incrementAndGet() == 1) {
+                        Thread.sleep(10_000);
+                    }
+                    return "ok";
+                }));
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+        assertEquals(0, flights.size());
+        assertTrue(log.toString(StandardCharsets.UTF_8).contains("Resolving test succeeded on attempt 2/3"));
+    }
+
+    @Test
+    void shouldStopRetryingAtDeadline() {
+        AtomicInteger calls = new AtomicInteger();
+        OrasFetchPolicy policy = policy(Duration.ofMillis(200), 1000);
+        assertThrows(IOException.class, () -> policy.call("Resolving test", () -> {
+            calls.incrementAndGet();
+            throw new ConnectException("Connection refused");
+        }));
+        assertTrue(calls.get() < 1000);
+    }
+
+    @Test
+    void shouldBoundBackoff() {
+        for (int attempt = 1; attempt < 100; attempt++) {
+            long backoff = OrasFetchPolicy.backoffMillis(attempt);
+            assertTrue(backoff >= 0 && backoff <= OrasFetchPolicy.MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    private OrasFetchPolicy policy(Duration deadline, int attempts) {
+        return new OrasFetchPolicy(
+                new StreamTaskListener(log, StandardCharsets.UTF_8), deadline, Duration.ofSeconds(5), attempts);
+    }
+}
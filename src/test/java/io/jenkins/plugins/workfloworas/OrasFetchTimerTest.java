@@ -0,0 +1,112 @@
+package io.jenkins.plugins.workfloworas;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class OrasFetchTimerTest {
+
+    private static final String HOST = "timer.example";
+
+    @AfterEach
+    void tearDown() throws Exception {
+        OrasFetchMetrics.get().reset();
+        OrasBlobCache.get().purge();
+    }
+
+    @Test
+    void shouldReportScriptHitsAndMisses(JenkinsRule jenkinsRule) throws Exception {
+        byte[] script = "echo 'timer'".getBytes(StandardCharsets.UTF_8);
+        String digest = OrasBlobCacheTest.digest(script);
+        OrasFetchTimer timer = new OrasFetchTimer(HOST, HOST + "/repo:latest");
+        for (int i = 0; i < 2; i++) {
+            timer.time(OrasFetchMetrics.Phase.BLOB, () -> OrasBlobCache.get()
+                    .getScript(
+                            digest,
+                            script.length,
+                            () -> timer.count(new ByteArrayInputStream(script)),
+                            timer::cacheRead));
+        }
+
+        JSONObject metrics = metrics(jenkinsRule);
+        assertEquals(1, metrics.getLong("cacheHits"));
+        assertEquals(1, metrics.getLong("cacheMisses"));
+        assertEquals(script.length, metrics.getLong("bytes"));
+        assertEquals(2, phase(metrics, OrasFetchMetrics.Phase.BLOB).getLong("count"));
+        assertTrue(timer.summary().endsWith(script.length + " bytes downloaded"), timer.summary());
+    }
+
+    @Test
+    void shouldReportIndexHit(JenkinsRule jenkinsRule, @TempDir Path tmp) throws Exception {
+        byte[] archive = Files.readAllBytes(TestArchives.createTarGz(tmp.resolve("repo.tar.gz"), 1, 10));
+        String digest = OrasBlobCacheTest.digest(archive);
+        OrasBlobCache.get()
+                .index(digest, CpsOrasFlowDefinition.REPO_MEDIA_TYPE, () -> new ByteArrayInputStream(archive))
+                .get();
+        OrasFetchTimer timer = new OrasFetchTimer(HOST, HOST + "/repo:latest");
+
+        String script = timer.time(OrasFetchMetrics.Phase.SCRIPT_READ, () -> OrasBlobCache.get()
+                .readIndexed(digest, TestArchives.SCRIPT_PATH, 1024, timer::cacheRead));
+
+        assertEquals(TestArchives.SCRIPT, script);
+        JSONObject metrics = metrics(jenkinsRule);
+        assertEquals(1, metrics.getLong("cacheHits"));
+        assertEquals(0, metrics.getLong("cacheMisses"));
+    }
+
+    @Test
+    void shouldCountBytesReadOnAnotherThread(JenkinsRule jenkinsRule) throws Exception {
+        byte[] content = new byte[100_000];
+        OrasFetchTimer timer = new OrasFetchTimer(HOST, HOST + "/repo:latest");
+
+        CompletableFuture.allOf(
+                        CompletableFuture.runAsync(() -> drain(timer.count(new ByteArrayInputStream(content)))),
+                        CompletableFuture.runAsync(() -> drain(timer.count(new ByteArrayInputStream(content)))))
+                .get();
+
+        assertEquals(2L * content.length, metrics(jenkinsRule).getLong("bytes"));
+        assertTrue(timer.summary().endsWith(2 * content.length + " bytes downloaded"), timer.summary());
+    }
+
+    private static void drain(InputStream is) {
+        try (is) {
+            is.transferTo(OutputStream.nullOutputStream());
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static JSONObject metrics(JenkinsRule jenkinsRule) throws Exception {
+        JSONArray registries =
+                jenkinsRule.getJSON("oras-metrics/api/json?depth=2").getJSONObject().getJSONArray("registries");
+        for (Object registry : registries) {
+            if (registry instanceof JSONObject json && HOST.equals(json.getString("host"))) {
+                return json;
+            }
+        }
+        throw new AssertionError("No metrics for " + HOST + ": " + registries);
+    }
+
+    private static JSONObject phase(JSONObject metrics, OrasFetchMetrics.Phase phase) {
+        for (Object value : metrics.getJSONArray("phases")) {
+            if (value instanceof JSONObject json && phase.name().equals(json.getString("phase"))) {
+                return json;
+            }
+        }
+        throw new AssertionError("No metrics for phase " + phase);
+    }
+}
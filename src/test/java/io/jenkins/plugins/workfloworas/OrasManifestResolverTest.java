@@ -0,0 +1,99 @@
+package io.jenkins.plugins.workfloworas;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.headRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import land.oras.Manifest;
+import land.oras.Registry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class OrasManifestResolverTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private RegistryStub stub;
+    private Registry registry;
+    private String ref;
+
+    @BeforeEach
+    void setUp(@TempDir Path dir) throws Exception {
+        stub = new RegistryStub();
+        Path script = Files.writeString(dir.resolve("Jenkinsfile"), TestArchives.SCRIPT, StandardCharsets.UTF_8);
+        ref = stub.push("pipeline", CpsOrasFlowDefinition.ARTIFACT_TYPE_SCRIPT, script);
+        registry = Registry.builder().defaults().insecure().build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        OrasManifestResolver.get().clear();
+        stub.close();
+    }
+
+    @Test
+    void shouldRevalidateExpiredTagWithHead(JenkinsRule jenkinsRule) throws Exception {
+        Manifest first = resolve(ref, Duration.ZERO);
+        int heads = heads();
+        int gets = gets();
+
+        assertSame(first, resolve(ref, Duration.ZERO));
+        assertEquals(heads + 1, heads());
+        assertEquals(gets, gets());
+    }
+
+    @Test
+    void shouldNotContactRegistryWithinTtl(JenkinsRule jenkinsRule) throws Exception {
+        Manifest first = resolve(ref, Duration.ofHours(1));
+        int requests = heads() + gets();
+
+        assertSame(first, resolve(ref, Duration.ofHours(1)));
+        assertEquals(requests, heads() + gets());
+    }
+
+    @Test
+    void shouldConfirmKnownPinnedReferenceOnceByKey(JenkinsRule jenkinsRule) throws Exception {
+        Manifest manifest = resolve(ref, Duration.ZERO);
+        int heads = heads();
+        int gets = gets();
+
+        String pinned = ref.substring(0, ref.lastIndexOf(':')) + "@" + manifest.getDigest();
+        assertSame(manifest, resolve(pinned, Duration.ZERO));
+        assertEquals(heads + 1, heads());
+        assertEquals(gets, gets());
+
+        assertSame(manifest, resolve(pinned, Duration.ZERO));
+        assertEquals(heads + 1, heads());
+
+        // Other credentials must reach the registry before the cached manifest is served
+        assertSame(manifest, resolve(pinned, "other|" + pinned, Duration.ZERO));
+        assertEquals(heads + 2, heads());
+        assertEquals(gets, gets());
+    }
+
+    private Manifest resolve(String reference, Duration ttl) throws Exception {
+        return resolve(reference, "key|" + reference, ttl);
+    }
+
+    private Manifest resolve(String reference, String key, Duration ttl) throws Exception {
+        return OrasManifestResolver.get().resolve(registry, reference, key, ttl, TIMEOUT);
+    }
+
+    private int heads() {
+        return stub.count(headRequestedFor(urlPathMatching("/v2/pipeline/manifests/.*")));
+    }
+
+    private int gets() {
+        return stub.count(getRequestedFor(urlPathMatching("/v2/pipeline/manifests/.*")));
+    }
+}
@@ -0,0 +1,109 @@
+package io.jenkins.plugins.workfloworas;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.htmlunit.html.DomNode;
+import org.htmlunit.html.HtmlForm;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class OrasMirrorsTest {
+
+    @AfterEach
+    void tearDown() {
+        OrasGlobalConfiguration.get().setMirrors(List.of());
+        OrasGlobalConfiguration.get().setHedgeRequests(false);
+    }
+
+    @Test
+    void shouldRankFastestHealthyEndpointFirst(JenkinsRule jenkinsRule) {
+        mirror("rank.example", "rank-fast.example", "rank-broken.example");
+        record("rank.example", 200, true);
+        record("rank-fast.example", 20, true);
+        for (int i = 0; i < 4; i++) {
+            record("rank-broken.example", 1, false);
+        }
+        assertEquals(
+                List.of(
+                        "rank-fast.example/repo:latest",
+                        "rank.example/repo:latest",
+                        "rank-broken.example/repo:latest"),
+                OrasMirrors.get().rank("rank.example/repo:latest"));
+    }
+
+    @Test
+    void shouldFallBackToNextEndpoint(JenkinsRule jenkinsRule) throws Exception {
+        mirror("fallback.example", "fallback-mirror.example");
+        record("fallback.example", 10, true);
+        record("fallback-mirror.example", 100, true);
+        List<String> calls = new CopyOnWriteArrayList<>();
+        String result = OrasMirrors.get().call("fallback.example/repo:latest", ref -> null, (registry, ref) -> {
+            calls.add(ref);
+            if (ref.startsWith("fallback.example/")) {
+                throw new IOException("Unavailable");
+            }
+            return ref;
+        });
+        assertEquals("fallback-mirror.example/repo:latest", result);
+        assertEquals(List.of("fallback.example/repo:latest", "fallback-mirror.example/repo:latest"), calls);
+    }
+
+    @Test
+    void shouldHedgeAndCloseLosingResult(JenkinsRule jenkinsRule) throws Exception {
+        mirror("hedge.example", "hedge-mirror.example");
+        OrasGlobalConfiguration.get().setHedgeRequests(true);
+        record("hedge.example", 10, true);
+        record("hedge-mirror.example", 50, true);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        Closeable mirrorResult = () -> {};
+        OrasMirrors.Request<Closeable> request = (registry, ref) -> {
+            if (ref.startsWith("hedge-mirror.example/")) {
+                return mirrorResult;
+            }
+            // Slower than usual, answering only once the mirror won
+            release.await();
+            return closed::countDown;
+        };
+        Closeable result = OrasMirrors.get().call("hedge.example/repo:latest", ref -> null, request);
+        assertSame(mirrorResult, result);
+        release.countDown();
+        assertTrue(closed.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldRemoveLastMirrorFromForm(JenkinsRule jenkinsRule) throws Exception {
+        mirror("form.example", "form-mirror.example");
+        jenkinsRule.configRoundtrip();
+        List<OrasMirror> mirrors = OrasGlobalConfiguration.get().getMirrors();
+        assertEquals(1, mirrors.size());
+        assertEquals("form.example", mirrors.get(0).getRegistry());
+        assertEquals("form-mirror.example", mirrors.get(0).getMirror());
+
+        HtmlForm form = jenkinsRule.createWebClient().goTo("configure").getFormByName("config");
+        DomNode chunk = form.getFirstByXPath(
+                "//input[@name='_.mirror']/ancestor::div[contains(@class, 'repeated-chunk')]");
+        chunk.remove();
+        jenkinsRule.submit(form);
+        assertEquals(List.of(), OrasGlobalConfiguration.get().getMirrors());
+    }
+
+    private static void mirror(String registry, String... mirrors) {
+        OrasGlobalConfiguration.get()
+                .setMirrors(Stream.of(mirrors).map(m -> new OrasMirror(registry, m)).toList());
+    }
+
+    private static void record(String host, long millis, boolean success) {
+        OrasMirrors.get().stats(host).record(millis, success);
+    }
+}
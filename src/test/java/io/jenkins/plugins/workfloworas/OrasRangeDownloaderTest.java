@@ -0,0 +1,195 @@
+package io.jenkins.plugins.workfloworas;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.absent;
+import static com.github.tomakehurst.wiremock.client.WireMock.any;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.head;
+import static com.github.tomakehurst.wiremock.client.WireMock.matching;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HexFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@WireMockTest
+class OrasRangeDownloaderTest {
+
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.UTF_8);
+
+    private long minSize;
+    private long chunkSize;
+    private String digest;
+    private String blobPath;
+
+    @TempDir
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        minSize = OrasRangeDownloader.MIN_SIZE;
+        chunkSize = OrasRangeDownloader.CHUNK_SIZE;
+        OrasRangeDownloader.MIN_SIZE = 1;
+        OrasRangeDownloader.CHUNK_SIZE = 4;
+        digest = "sha256:" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(CONTENT));
+        blobPath = "/v2/repo/blobs/" + digest;
+    }
+
+    @AfterEach
+    void tearDown() {
+        OrasRangeDownloader.MIN_SIZE = minSize;
+        OrasRangeDownloader.CHUNK_SIZE = chunkSize;
+    }
+
+    @Test
+    void shouldDownloadChunks(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+        WireMock wireMock = wmRuntimeInfo.getWireMock();
+        stubHead(wireMock);
+        stubRanges(wireMock, blobPath);
+        Path file = dir.resolve("blob");
+
+        assertTrue(downloader(wmRuntimeInfo).download(digest, CONTENT.length, file));
+
+        assertArrayEquals(CONTENT, Files.readAllBytes(file));
+        assertFalse(Files.exists(dir.resolve("blob.part")));
+        assertFalse(Files.exists(dir.resolve("blob.chunks")));
+        wireMock.verifyThat(3, getRequestedFor(urlPathEqualTo(blobPath)));
+    }
+
+    @Test
+    void shouldResumeFromRecordedChunks(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+        WireMock wireMock = wmRuntimeInfo.getWireMock();
+        stubHead(wireMock);
+        stubRanges(wireMock, blobPath);
+        // First chunk downloaded before a restart
+        byte[] part = new byte[CONTENT.length];
+        System.arraycopy(CONTENT, 0, part, 0, 4);
+        Files.write(dir.resolve("blob.part"), part);
+        BitSet done = new BitSet();
+        done.set(0);
+        Files.write(dir.resolve("blob.chunks"), done.toByteArray());
+        Path file = dir.resolve("blob");
+
+        assertTrue(downloader(wmRuntimeInfo).download(digest, CONTENT.length, file));
+
+        assertArrayEquals(CONTENT, Files.readAllBytes(file));
+        wireMock.verifyThat(0, getRequestedFor(urlPathEqualTo(blobPath)).withHeader("Range", equalTo("bytes=0-3")));
+        wireMock.verifyThat(2, getRequestedFor(urlPathEqualTo(blobPath)));
+    }
+
+    @Test
+    void shouldRefreshExpiredToken(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+        WireMock wireMock = wmRuntimeInfo.getWireMock();
+        String challenge = "Bearer realm=\"%s/token\",service=\"registry\"".formatted(wmRuntimeInfo.getHttpBaseUrl());
+        wireMock.register(any(urlPathEqualTo(blobPath))
+                .atPriority(10)
+                .willReturn(aResponse().withStatus(401).withHeader("WWW-Authenticate", challenge)));
+        wireMock.register(head(urlPathEqualTo(blobPath))
+                .atPriority(1)
+                .withHeader("Authorization", equalTo("Bearer abc"))
+                .willReturn(ok().withHeader("Accept-Ranges", "bytes")
+                        .withHeader("Content-Length", String.valueOf(CONTENT.length))));
+        // The first token expires before the chunks are requested
+        wireMock.register(get(urlPathEqualTo("/token"))
+                .inScenario("token")
+                .whenScenarioStateIs(Scenario.STARTED)
+                .willSetStateTo("expired")
+                .willReturn(okJson("{\"token\":\"abc\"}")));
+        wireMock.register(get(urlPathEqualTo("/token"))
+                .inScenario("token")
+                .whenScenarioStateIs("expired")
+                .willReturn(okJson("{\"token\":\"def\"}")));
+        OrasRangeDownloader.CHUNK_SIZE = CONTENT.length;
+        wireMock.register(get(urlPathEqualTo(blobPath))
+                .atPriority(1)
+                .withHeader("Authorization", equalTo("Bearer def"))
+                .withHeader("Range", equalTo("bytes=0-9"))
+                .willReturn(aResponse().withStatus(206).withBody(CONTENT)));
+        Path file = dir.resolve("blob");
+
+        assertTrue(downloader(wmRuntimeInfo).download(digest, CONTENT.length, file));
+
+        assertArrayEquals(CONTENT, Files.readAllBytes(file));
+        wireMock.verifyThat(2, getRequestedFor(urlPathEqualTo("/token")));
+    }
+
+    @Test
+    void shouldNotSendCredentialsOnRedirect(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+        WireMock wireMock = wmRuntimeInfo.getWireMock();
+        String challenge = "Bearer realm=\"%s/token\",service=\"registry\"".formatted(wmRuntimeInfo.getHttpBaseUrl());
+        wireMock.register(head(urlPathEqualTo(blobPath))
+                .withHeader("Authorization", absent())
+                .willReturn(aResponse().withStatus(401).withHeader("WWW-Authenticate", challenge)));
+        wireMock.register(head(urlPathEqualTo(blobPath))
+                .withHeader("Authorization", equalTo("Bearer abc"))
+                .willReturn(ok().withHeader("Accept-Ranges", "bytes")
+                        .withHeader("Content-Length", String.valueOf(CONTENT.length))));
+        wireMock.register(get(urlPathEqualTo("/token")).willReturn(okJson("{\"token\":\"abc\"}")));
+        wireMock.register(get(urlPathEqualTo(blobPath))
+                .willReturn(aResponse().withStatus(307).withHeader("Location", "/storage/blob")));
+        stubRanges(wireMock, "/storage/blob");
+        Path file = dir.resolve("blob");
+
+        assertTrue(downloader(wmRuntimeInfo).download(digest, CONTENT.length, file));
+
+        assertArrayEquals(CONTENT, Files.readAllBytes(file));
+        wireMock.verifyThat(
+                3, getRequestedFor(urlPathEqualTo(blobPath)).withHeader("Authorization", equalTo("Bearer abc")));
+        wireMock.verifyThat(
+                3, getRequestedFor(urlPathEqualTo("/storage/blob")).withHeader("Range", matching("bytes=.*")));
+        wireMock.verifyThat(
+                0, getRequestedFor(urlPathEqualTo("/storage/blob")).withHeader("Authorization", matching(".*")));
+    }
+
+    @Test
+    void shouldFallBackWithoutAcceptRanges(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+        WireMock wireMock = wmRuntimeInfo.getWireMock();
+        wireMock.register(head(urlPathEqualTo(blobPath))
+                .willReturn(ok().withHeader("Content-Length", String.valueOf(CONTENT.length))));
+        Path file = dir.resolve("blob");
+
+        assertFalse(downloader(wmRuntimeInfo).download(digest, CONTENT.length, file));
+
+        assertFalse(Files.exists(file));
+        assertFalse(Files.exists(dir.resolve("blob.part")));
+        wireMock.verifyThat(0, getRequestedFor(urlPathEqualTo(blobPath)));
+    }
+
+    private OrasRangeDownloader downloader(WireMockRuntimeInfo wmRuntimeInfo) {
+        return new OrasRangeDownloader(
+                "localhost:" + wmRuntimeInfo.getHttpPort(), "repo", true, null, Duration.ofSeconds(10));
+    }
+
+    private void stubHead(WireMock wireMock) {
+        wireMock.register(head(urlPathEqualTo(blobPath))
+                .willReturn(ok().withHeader("Accept-Ranges", "bytes")
+                        .withHeader("Content-Length", String.valueOf(CONTENT.length))));
+    }
+
+    private static void stubRanges(WireMock wireMock, String path) {
+        for (long start = 0; start < CONTENT.length; start += OrasRangeDownloader.CHUNK_SIZE) {
+            int end = (int) Math.min(CONTENT.length, start + OrasRangeDownloader.CHUNK_SIZE);
+            wireMock.register(get(urlPathEqualTo(path))
+                    .withHeader("Range", equalTo("bytes=%d-%d".formatted(start, end - 1)))
+                    .willReturn(aResponse().withStatus(206).withBody(Arrays.copyOfRange(CONTENT, (int) start, end))));
+        }
+    }
+}
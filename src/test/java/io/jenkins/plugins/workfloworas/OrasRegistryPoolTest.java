@@ -0,0 +1,103 @@
+package io.jenkins.plugins.workfloworas;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+import land.oras.Registry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OrasRegistryPoolTest {
+
+    private static final OrasRegistryPool.Key KEY =
+            new OrasRegistryPool.Key("registry.example", "credentials", false, "fingerprint");
+
+    private final AtomicInteger created = new AtomicInteger();
+    private MutableClock clock;
+    private OrasRegistryPool pool;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        pool = new OrasRegistryPool(clock);
+    }
+
+    @Test
+    void shouldReusePooledClient() {
+        Registry registry = get(KEY);
+        clock.advance(Duration.ofSeconds(OrasRegistryPool.IDLE_TIMEOUT));
+
+        assertSame(registry, get(KEY));
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void shouldCreateClientWhenFingerprintChanges() {
+        Registry registry = get(KEY);
+        OrasRegistryPool.Key updated =
+                new OrasRegistryPool.Key(KEY.host(), KEY.credentialsId(), KEY.insecure(), "updated");
+
+        assertNotSame(registry, get(updated));
+        assertEquals(2, created.get());
+        assertSame(registry, get(KEY));
+    }
+
+    @Test
+    void shouldExpireIdleClient() {
+        Registry registry = get(KEY);
+        clock.advance(Duration.ofSeconds(OrasRegistryPool.IDLE_TIMEOUT + 1));
+
+        assertNotSame(registry, get(KEY));
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    void shouldExpireClientAfterMaxAgeWhileInUse() {
+        Registry registry = get(KEY);
+        Duration step = Duration.ofSeconds(OrasRegistryPool.IDLE_TIMEOUT / 2);
+        for (long elapsed = 0; elapsed + step.toSeconds() <= OrasRegistryPool.MAX_AGE; elapsed += step.toSeconds()) {
+            clock.advance(step);
+            assertSame(registry, get(KEY));
+        }
+        clock.advance(step);
+
+        assertNotSame(registry, get(KEY));
+        assertEquals(2, created.get());
+    }
+
+    private Registry get(OrasRegistryPool.Key key) {
+        return pool.get(key, () -> {
+            created.incrementAndGet();
+            return Registry.builder().defaults().insecure().build();
+        });
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package io.jenkins.plugins.workfloworas;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import org.junit.jupiter.api.Test;
+
+class OrasScriptReaderTest {
+
+    private static final byte[] SCRIPT = "echo 'héllo'".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void shouldReadScriptMatchingDigest() throws Exception {
+        String script = OrasScriptReader.read(new ByteArrayInputStream(SCRIPT), digest(SCRIPT), SCRIPT.length, 1024);
+        assertEquals("echo 'héllo'", script);
+    }
+
+    @Test
+    void shouldReadWithoutLimit() throws Exception {
+        String script = OrasScriptReader.read(new ByteArrayInputStream(SCRIPT), null, -1, Long.MAX_VALUE);
+        assertEquals("echo 'héllo'", script);
+    }
+
+    @Test
+    void shouldRejectDigestMismatch() throws Exception {
+        byte[] other = "echo 'other'".getBytes(StandardCharsets.UTF_8);
+        IOException e = assertThrows(
+                IOException.class,
+                () -> OrasScriptReader.read(new ByteArrayInputStream(SCRIPT), digest(other), SCRIPT.length, 1024));
+        assertTrue(e.getMessage().startsWith("Digest mismatch"));
+    }
+
+    @Test
+    void shouldRejectDeclaredSizeAboveLimit() {
+        IOException e = assertThrows(
+                IOException.class,
+                () -> OrasScriptReader.read(new ByteArrayInputStream(SCRIPT), digest(SCRIPT), SCRIPT.length, 4));
+        assertTrue(e.getMessage().contains("exceeds the maximum size"));
+    }
+
+    @Test
+    void shouldRejectActualSizeAboveLimit() {
+        IOException e = assertThrows(
+                IOException.class, () -> OrasScriptReader.read(new ByteArrayInputStream(SCRIPT), null, -1, 4));
+        assertTrue(e.getMessage().contains("exceeds the maximum size"));
+    }
+
+    @Test
+    void shouldRejectSizeMismatch() {
+        IOException e = assertThrows(
+                IOException.class,
+                () -> OrasScriptReader.read(new ByteArrayInputStream(SCRIPT), null, SCRIPT.length + 1, 1024));
+        assertTrue(e.getMessage().startsWith("Size mismatch"));
+    }
+
+    private static String digest(byte[] content) throws Exception {
+        return "sha256:" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
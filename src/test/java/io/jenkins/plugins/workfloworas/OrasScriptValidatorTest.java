@@ -0,0 +1,55 @@
+package io.jenkins.plugins.workfloworas;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class OrasScriptValidatorTest {
+
+    @AfterEach
+    void tearDown() {
+        OrasScriptValidator.get().clear();
+    }
+
+    @Test
+    void shouldAcceptValidScript() {
+        OrasScriptValidator.Verdict verdict = OrasScriptValidator.get().validate("sha256:aaa", TestArchives.SCRIPT);
+        assertTrue(verdict.valid());
+        assertNull(verdict.error());
+    }
+
+    @Test
+    void shouldRejectSyntaxError() {
+        OrasScriptValidator.Verdict verdict =
+                OrasScriptValidator.get().validate("sha256:bbb", "node {\n    echo 'unterminated\n}\n");
+        assertFalse(verdict.valid());
+        assertNotNull(verdict.error());
+        assertSame(verdict, OrasScriptValidator.get().getVerdict("sha256:bbb"));
+    }
+
+    @Test
+    void shouldNotParseKnownDigestAgain() {
+        OrasScriptValidator.get().validate("sha256:ccc", "node {");
+        OrasScriptValidator.Verdict verdict = OrasScriptValidator.get().validate("sha256:ccc", TestArchives.SCRIPT);
+        assertFalse(verdict.valid());
+    }
+
+    @Test
+    void shouldNotRunGrab() {
+        String property = OrasScriptValidatorTest.class.getName() + ".grabbed";
+        String script = "@GrabConfig(systemProperties = '" + property + "=true')\n"
+                + "@Grab('io.jenkins.plugins.missing:missing:0.0.1')\n"
+                + "import missing.Missing\n"
+                + "node { echo 'hello' }\n";
+        OrasScriptValidator.Verdict verdict = OrasScriptValidator.get().validate("sha256:eee", script);
+        assertTrue(verdict.valid(), verdict.error());
+        assertNull(System.getProperty(property));
+    }
+
+    @Test
+    void shouldKeyRepositoryScriptsByPath() {
+        assertEquals("sha256:ddd", OrasScriptValidator.key("sha256:ddd", null));
+        assertEquals("sha256:ddd|ci/Jenkinsfile", OrasScriptValidator.key("sha256:ddd", "./ci/Jenkinsfile"));
+    }
+}
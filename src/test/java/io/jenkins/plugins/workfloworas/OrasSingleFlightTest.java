@@ -0,0 +1,162 @@
+package io.jenkins.plugins.workfloworas;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import hudson.AbortException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class OrasSingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final OrasSingleFlight<String, String> flights = new OrasSingleFlight<>();
+
+    @Test
+    void shouldCoalesceConcurrentCalls() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<AtomicReference<Object>> results = new ArrayList<>();
+        List<Thread> callers = start(
+                () -> {
+                    executions.incrementAndGet();
+                    release.await();
+                    return "result";
+                },
+                results);
+        awaitWaiting(callers);
+        release.countDown();
+        join(callers);
+        assertEquals(1, executions.get());
+        for (AtomicReference<Object> result : results) {
+            assertEquals("result", result.get());
+        }
+        assertEquals(0, flights.size());
+    }
+
+    @Test
+    void shouldReportFailureToAllCallers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AbortException failure = new AbortException("Not found");
+        List<AtomicReference<Object>> results = new ArrayList<>();
+        List<Thread> callers = start(
+                () -> {
+                    release.await();
+                    throw failure;
+                },
+                results);
+        awaitWaiting(callers);
+        release.countDown();
+        join(callers);
+        for (AtomicReference<Object> result : results) {
+            assertSame(failure, result.get());
+        }
+        assertEquals(0, flights.size());
+    }
+
+    @Test
+    void shouldNotCancelSharedExecutionWhenCallerIsInterrupted() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Callable<String> task = () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+                throw e;
+            }
+            return "result";
+        };
+        AtomicReference<Object> first = new AtomicReference<>();
+        Thread caller = new Thread(() -> call(task, first));
+        caller.start();
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        caller.interrupt();
+        caller.join(TimeUnit.SECONDS.toMillis(10));
+        assertInstanceOf(InterruptedException.class, first.get());
+        assertEquals(1, flights.size());
+
+        AtomicReference<Object> second = new AtomicReference<>();
+        Thread other = new Thread(() -> call(() -> "other", second));
+        other.start();
+        awaitWaiting(List.of(other));
+        release.countDown();
+        other.join(TimeUnit.SECONDS.toMillis(10));
+        assertEquals("result", second.get());
+        assertFalse(interrupted.get());
+    }
+
+    @Test
+    void shouldStartNewExecutionAfterTimeout() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Callable<String> task = () -> {
+            if (executions.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+            }
+            return "result";
+        };
+        assertThrows(
+                OrasFetchPolicy.RequestTimeoutException.class,
+                () -> flights.run("key", Duration.ofMillis(100), task));
+        assertEquals(0, flights.size());
+        assertEquals("result", flights.run("key", Duration.ofMillis(100), task));
+        assertEquals(2, executions.get());
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    }
+
+    private List<Thread> start(Callable<String> task, List<AtomicReference<Object>> results) {
+        List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            AtomicReference<Object> result = new AtomicReference<>();
+            results.add(result);
+            Thread caller = new Thread(() -> call(task, result));
+            callers.add(caller);
+            caller.start();
+        }
+        return callers;
+    }
+
+    private void call(Callable<String> task, AtomicReference<Object> result) {
+        try {
+            result.set(flights.run("key", task));
+        } catch (Exception e) {
+            result.set(e);
+        }
+    }
+
+    /**
+     * Wait until all callers joined the execution in flight
+     */
+    private static void awaitWaiting(List<Thread> callers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (Thread caller : callers) {
+            while (caller.getState() != Thread.State.WAITING) {
+                assertTrue(System.nanoTime() < deadline, "Timed out waiting for " + caller);
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private static void join(List<Thread> callers) throws InterruptedException {
+        for (Thread caller : callers) {
+            caller.join(TimeUnit.SECONDS.toMillis(10));
+            assertFalse(caller.isAlive());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package io.jenkins.plugins.workfloworas;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.head;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.serverError;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.matching.RequestPatternBuilder;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import land.oras.ArtifactType;
+import land.oras.Layer;
+import land.oras.Manifest;
+import land.oras.utils.Const;
+
+/**
+ * In-process registry stand-in serving single layer artifacts with configurable latency and bandwidth.
+ * Latency is set with the {@code benchmark.latencyMs} system property and bandwidth with {@code benchmark.bandwidth}
+ * in bytes per second (unlimited by default).
+ */
+final class RegistryStub implements AutoCloseable {
+
+    static final int LATENCY_MS = Integer.getInteger("benchmark.latencyMs", 0);
+    static final long BANDWIDTH = Long.getLong("benchmark.bandwidth", 0L);
+
+    private final WireMockServer server;
+
+    RegistryStub() {
+        server = new WireMockServer(options().dynamicPort());
+        server.start();
+    }
+
+    /**
+     * @return The registry host and port
+     */
+    String getRegistry() {
+        return "localhost:" + server.port();
+    }
+
+    /**
+     * Serve the given file as the single layer of {@code <repository>:latest}, also resolvable by digest
+     * @param repository The repository
+     * @param artifactType The artifact type
+     * @param file The layer content
+     * @return The reference of the artifact
+     */
+    String push(String repository, ArtifactType artifactType, Path file) throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        Layer layer = Layer.fromFile(file);
+        Manifest manifest = Manifest.empty().withArtifactType(artifactType).withLayers(List.of(layer));
+        String json = manifest.toJson();
+        for (String reference : List.of("latest", manifest.getDigest())) {
+            String manifestPath = "/v2/%s/manifests/%s".formatted(repository, reference);
+            server.stubFor(head(urlPathEqualTo(manifestPath))
+                    .willReturn(delayed(ok().withHeader(Const.DOCKER_CONTENT_DIGEST_HEADER, manifest.getDigest())
+                            .withHeader(Const.CONTENT_TYPE_HEADER, Const.DEFAULT_MANIFEST_MEDIA_TYPE))));
+            server.stubFor(get(urlPathEqualTo(manifestPath))
+                    .willReturn(delayed(ok(json)
+                            .withHeader(Const.DOCKER_CONTENT_DIGEST_HEADER, manifest.getDigest())
+                            .withHeader(Const.CONTENT_TYPE_HEADER, Const.DEFAULT_MANIFEST_MEDIA_TYPE)
+                            .withHeader(Const.CONTENT_LENGTH_HEADER, String.valueOf(json.length())))));
+        }
+        String blobPath = "/v2/%s/blobs/.*".formatted(repository);
+        server.stubFor(head(urlPathMatching(blobPath)).willReturn(delayed(ok())));
+        ResponseDefinitionBuilder blob = delayed(ok().withBody(content)
+                .withHeader(Const.CONTENT_LENGTH_HEADER, String.valueOf(content.length)));
+        if (BANDWIDTH > 0) {
+            int duration = (int) Math.max(1, content.length * 1000L / BANDWIDTH);
+            blob = blob.withChunkedDribbleDelay(Math.max(1, Math.min(content.length, 100)), duration);
+        }
+        server.stubFor(get(urlPathMatching(blobPath)).willReturn(blob));
+        return "%s/%s:latest".formatted(getRegistry(), repository);
+    }
+
+    /**
+     * Fail all blob requests of a repository with a server error, until it's pushed again
+     * @param repository The repository
+     */
+    void failBlobs(String repository) {
+        server.stubFor(get(urlPathMatching("/v2/%s/blobs/.*".formatted(repository)))
+                .willReturn(serverError()));
+    }
+
+    /**
+     * @return The number of requests received matching the pattern
+     */
+    int count(RequestPatternBuilder pattern) {
+        return server.countRequestsMatching(pattern.build()).getCount();
+    }
+
+    private static ResponseDefinitionBuilder delayed(ResponseDefinitionBuilder response) {
+        return LATENCY_MS > 0 ? response.withFixedDelay(LATENCY_MS) : response;
+    }
+
+    @Override
+    public void close() {
+        server.stop();
+    }
+}
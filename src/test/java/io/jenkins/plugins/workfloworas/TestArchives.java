@@ -0,0 +1,101 @@
+package io.jenkins.plugins.workfloworas;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
+
+/**
+ * Generate repository archives for tests and benchmarks
+ */
+final class TestArchives {
+
+    static final String SCRIPT_PATH = "Jenkinsfile";
+
+    static final String SCRIPT = """
+            node {
+                stage('Build') {
+                    echo 'Building...'
+                }
+            }
+            """;
+
+    static final String LIBRARY_STEP = """
+            def call() {
+                echo 'Hello from ORAS library'
+            }
+            """;
+
+    private TestArchives() {}
+
+    /**
+     * Create a gzip tarball with a Jenkinsfile at the end of the given number of filler files
+     * @param archive The archive to create
+     * @param fileCount Number of filler files
+     * @param fileSize Size of each filler file
+     * @return The archive
+     */
+    static Path createTarGz(Path archive, int fileCount, int fileSize) throws IOException {
+        try (OutputStream os = new GzipCompressorOutputStream(Files.newOutputStream(archive))) {
+            writeTar(os, fileCount, fileSize);
+        }
+        return archive;
+    }
+
+    /**
+     * Create a plain tarball with a Jenkinsfile at the end of the given number of filler files
+     */
+    static Path createTar(Path archive, int fileCount, int fileSize) throws IOException {
+        try (OutputStream os = Files.newOutputStream(archive)) {
+            writeTar(os, fileCount, fileSize);
+        }
+        return archive;
+    }
+
+    /**
+     * Create a zstd tarball with a Jenkinsfile at the end of the given number of filler files
+     */
+    static Path createTarZst(Path archive, int fileCount, int fileSize) throws IOException {
+        try (OutputStream os = new ZstdCompressorOutputStream(Files.newOutputStream(archive))) {
+            writeTar(os, fileCount, fileSize);
+        }
+        return archive;
+    }
+
+    /**
+     * Create a gzip tarball of a shared library with a {@code hello} global variable
+     */
+    static Path createLibraryTarGz(Path archive) throws IOException {
+        try (OutputStream os = new GzipCompressorOutputStream(Files.newOutputStream(archive));
+                TarArchiveOutputStream tar = new TarArchiveOutputStream(os)) {
+            write(tar, "vars/hello.groovy", LIBRARY_STEP.getBytes(StandardCharsets.UTF_8));
+        }
+        return archive;
+    }
+
+    static void writeTar(OutputStream os, int fileCount, int fileSize) throws IOException {
+        byte[] filler = new byte[fileSize];
+        Arrays.fill(filler, (byte) 'x');
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(os)) {
+            tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            for (int i = 0; i < fileCount; i++) {
+                write(tar, "src/dir%d/file%d.txt".formatted(i % 100, i), filler);
+            }
+            write(tar, SCRIPT_PATH, SCRIPT.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void write(TarArchiveOutputStream tar, String name, byte[] content) throws IOException {
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(content.length);
+        tar.putArchiveEntry(entry);
+        tar.write(content);
+        tar.closeArchiveEntry();
+    }
+}